@@ -0,0 +1,72 @@
+package io.ikfly.benchmark;
+
+import io.ikfly.constant.TtsConstants;
+import io.ikfly.model.AudioFrame;
+import okio.Buffer;
+import okio.ByteString;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 二进制音频帧解析：旧的 lastIndexOf + substring 方式与 {@link AudioFrame} 对比，
+ * 用 -prof gc 查看每帧分配
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AudioFrameBenchmark {
+
+    /**
+     * 音频数据长度，edge 单帧一般在 4KB 左右
+     */
+    @Param({"4096"})
+    public int payloadSize;
+
+    private ByteString frame;
+    private final Buffer audioBuffer = new Buffer();
+    private final AudioFrame audioFrame = new AudioFrame();
+
+    @Setup
+    public void setup() {
+        frame = Frames.audioFrame("4ff8174b303fc1032ec1b66ea9a86459", payloadSize);
+    }
+
+    @Benchmark
+    public long legacy() {
+        ByteString bytes = frame;
+        int audioIndex = bytes.lastIndexOf(TtsConstants.AUDIO_START.getBytes(StandardCharsets.UTF_8)) + TtsConstants.AUDIO_START.length();
+        boolean audioContentType = bytes.lastIndexOf(TtsConstants.AUDIO_CONTENT_TYPE.getBytes(StandardCharsets.UTF_8)) + TtsConstants.AUDIO_CONTENT_TYPE.length() != -1;
+        if (audioIndex != -1 && audioContentType) {
+            audioBuffer.write(bytes.substring(audioIndex));
+        }
+        long size = audioBuffer.size();
+        audioBuffer.clear();
+        return size;
+    }
+
+    @Benchmark
+    public long decodeToBuffer() {
+        audioFrame.decode(frame);
+        if (audioFrame.hasAudio()) {
+            audioFrame.writePayloadTo(audioBuffer);
+        }
+        long size = audioBuffer.size();
+        audioBuffer.clear();
+        return size;
+    }
+
+    @Benchmark
+    public ByteBuffer decodeToByteBuffer() {
+        audioFrame.decode(frame);
+        return audioFrame.payload();
+    }
+}
@@ -0,0 +1,35 @@
+package io.ikfly.benchmark;
+
+import okio.Buffer;
+import okio.ByteString;
+
+import java.util.Random;
+
+/**
+ * 构造与 edge 服务端格式一致的测试消息
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+final class Frames {
+
+    private Frames() {
+    }
+
+    /**
+     * 与 okhttp 一样从 Buffer 读出消息，超过 4KB 时得到的是分段的 ByteString
+     */
+    static ByteString audioFrame(String requestId, int payloadSize) {
+        String headers = "X-RequestId:" + requestId + "\r\n" +
+                "Content-Type:audio/mpeg\r\n" +
+                "X-StreamId:D5F3C6A3A5E2471D9E8A0AC0EFB25B0F\r\n" +
+                "Path:audio\r\n";
+        byte[] payload = new byte[payloadSize];
+        new Random(payloadSize).nextBytes(payload);
+        Buffer buffer = new Buffer();
+        buffer.writeShort(headers.length());
+        buffer.writeUtf8(headers);
+        buffer.write(payload);
+        return buffer.readByteString();
+    }
+}
@@ -0,0 +1,64 @@
+package io.ikfly.benchmark;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.constant.VoiceEnum;
+import io.ikfly.model.SSML;
+import io.ikfly.model.SpeechConfig;
+import io.ikfly.util.Tools;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求都要生成的文本消息：ssml、speech.config，以及其中的时间戳和请求 id，
+ * 单独测 {@link Tools#date()} 和 {@link Tools#getRandomId()} 便于看出耗时落在哪一步
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageRenderBenchmark {
+
+    private SSML ssml;
+    private SpeechConfig speechConfig;
+
+    @Setup
+    public void setup() {
+        ssml = SSML.builder()
+                .synthesisText("今天天气很好，适合出门散步。我们去公园走走吧。")
+                .voice(VoiceEnum.zh_CN_XiaoxiaoNeural)
+                .outputFormat(OutputFormat.audio_24khz_48kbitrate_mono_mp3)
+                .build();
+        speechConfig = SpeechConfig.of(OutputFormat.audio_24khz_48kbitrate_mono_mp3);
+    }
+
+    @Benchmark
+    public String ssmlToString() {
+        return ssml.toString();
+    }
+
+    @Benchmark
+    public String ssmlRender() {
+        return ssml.render("4ff8174b303fc1032ec1b66ea9a86459");
+    }
+
+    @Benchmark
+    public String speechConfigToString() {
+        return speechConfig.toString();
+    }
+
+    @Benchmark
+    public String date() {
+        return Tools.date();
+    }
+
+    @Benchmark
+    public String randomId() {
+        return Tools.getRandomId();
+    }
+}
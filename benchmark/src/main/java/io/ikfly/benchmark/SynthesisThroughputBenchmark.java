@@ -0,0 +1,100 @@
+package io.ikfly.benchmark;
+
+import io.ikfly.backend.MockBackend;
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.constant.VoiceEnum;
+import io.ikfly.model.SSML;
+import io.ikfly.model.SynthesisResult;
+import io.ikfly.service.TTSService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 端到端吞吐：连接本地模拟服务端，一次提交一批请求并等待全部完成，
+ * 用于比较连接池大小、单连接并发数和是否写文件对吞吐的影响
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SynthesisThroughputBenchmark {
+
+    private static final int BATCH = 32;
+
+    @Param({"1", "4"})
+    public int poolSize;
+
+    @Param({"1", "4"})
+    public int maxInFlight;
+
+    /**
+     * 模拟服务端的首包延迟
+     */
+    @Param({"0", "20"})
+    public long firstAudioDelayMillis;
+
+    @Param({"false", "true"})
+    public boolean saveAudioFile;
+
+    private MockBackend backend;
+    private TTSService service;
+    private Path dir;
+    private SSML[] requests;
+
+    @Setup
+    public void setup() throws IOException {
+        backend = new MockBackend();
+        backend.getServer().setFirstAudioDelayMillis(firstAudioDelayMillis);
+        dir = Files.createTempDirectory("tts-bench");
+        service = new TTSService(dir.toString() + File.separator, poolSize, backend);
+        service.setMaxInFlightPerConnection(maxInFlight);
+        service.setSaveAudioFile(saveAudioFile);
+        service.warmUp(poolSize, OutputFormat.audio_24khz_48kbitrate_mono_mp3).join();
+        requests = new SSML[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            requests[i] = SSML.builder()
+                    .synthesisText("第" + i + "句，今天天气很好，适合出门散步。")
+                    .voice(VoiceEnum.zh_CN_XiaoxiaoNeural)
+                    .outputFormat(OutputFormat.audio_24khz_48kbitrate_mono_mp3)
+                    .outputFileName("bench-" + i)
+                    .build();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        service.close();
+        backend.close();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long synthesize() {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<SynthesisResult>[] futures = new CompletableFuture[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            futures[i] = service.synthesizeAsync(requests[i]);
+        }
+        long bytes = 0;
+        for (CompletableFuture<SynthesisResult> future : futures) {
+            bytes += future.join().getAudio().size();
+        }
+        return bytes;
+    }
+}
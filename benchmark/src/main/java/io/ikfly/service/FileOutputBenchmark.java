@@ -0,0 +1,88 @@
+package io.ikfly.service;
+
+import okio.Buffer;
+import okio.ByteString;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 音频文件写出：旧的 toByteArray + FileOutputStream 方式与 AudioFileWriter 的
+ * 分段写入文件通道 + 临时文件改名方式对比，用 -prof gc 查看整段复制的分配。
+ * AudioFileWriter 是包内可见的，基准放在同名包下直接调用
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FileOutputBenchmark {
+
+    /**
+     * 音频长度，64KB 约 10 秒 48kbps mp3
+     */
+    @Param({"65536", "1048576"})
+    public int audioSize;
+
+    private ByteString audio;
+    private Path dir;
+    private File target;
+    private AudioFileWriter writer;
+
+    @Setup
+    public void setup() throws IOException {
+        // 与合成时一样由多个 4KB 的帧拼成，得到分段的 ByteString
+        Random random = new Random(audioSize);
+        Buffer buffer = new Buffer();
+        byte[] frame = new byte[4096];
+        for (int written = 0; written < audioSize; written += frame.length) {
+            random.nextBytes(frame);
+            buffer.write(frame, 0, Math.min(frame.length, audioSize - written));
+        }
+        audio = buffer.readByteString();
+        dir = Files.createTempDirectory("tts-bench");
+        target = dir.resolve("audio.mp3").toFile();
+        writer = new AudioFileWriter();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        writer.shutdown();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public long legacy() throws IOException {
+        byte[] audioBuffer = audio.toByteArray();
+        if (target.exists()) {
+            target.delete();
+        }
+        FileOutputStream fstream = new FileOutputStream(target);
+        fstream.write(audioBuffer);
+        fstream.flush();
+        fstream.close();
+        return target.length();
+    }
+
+    /**
+     * 与合成时相同，提交到 I/O 线程写出并等待完成
+     */
+    @Benchmark
+    public long writer() {
+        return writer.write(target, audio).join().length();
+    }
+}
@@ -0,0 +1,90 @@
+package io.ikfly.backend;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.constant.TtsConstants;
+import io.ikfly.exceptions.TtsException;
+import io.ikfly.util.Tools;
+import okhttp3.Request;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Azure 语音服务，使用订阅密钥认证。
+ * 连接建立后发送 speech.config，每个请求在 ssml 之前发送 synthesis.context 指定输出格式
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class AzureBackend implements SynthesisBackend {
+
+    private static final String SPEECH_CONFIG = "X-Timestamp:%s\r\n" +
+            "Content-Type:application/json; charset=utf-8\r\n" +
+            "Path:speech.config\r\n" +
+            "\r\n" +
+            "{\"context\":{\"system\":{\"name\":\"SpeechSDK\",\"version\":\"1.34.0\",\"build\":\"Java\",\"lang\":\"Java\"}," +
+            "\"os\":{\"platform\":\"Java\",\"name\":\"java-tts\",\"version\":\"1.0\"}}}";
+
+    private static final String SYNTHESIS_CONTEXT = "X-RequestId:%s\r\n" +
+            "X-Timestamp:%s\r\n" +
+            "Content-Type:application/json; charset=utf-8\r\n" +
+            "Path:synthesis.context\r\n" +
+            "\r\n" +
+            "{\"synthesis\":{\"audio\":{\"metadataOptions\":{\"sentenceBoundaryEnabled\":false,\"wordBoundaryEnabled\":true}," +
+            "\"outputFormat\":\"%s\"}}}";
+
+    private final String endpoint;
+    private final String subscriptionKey;
+
+    /**
+     * @param subscriptionKey 订阅密钥
+     * @param region          区域，如 eastus
+     */
+    public AzureBackend(String subscriptionKey, String region) {
+        this(subscriptionKey, region, null);
+    }
+
+    /**
+     * @param subscriptionKey 订阅密钥
+     * @param region          区域，endpoint 为空时用于拼接地址
+     * @param endpoint        自定义 ws 地址，为空时使用区域地址
+     */
+    public AzureBackend(String subscriptionKey, String region, String endpoint) {
+        if (subscriptionKey == null || subscriptionKey.isEmpty()) {
+            throw TtsException.of("Azure 订阅密钥不能为空");
+        }
+        if ((endpoint == null || endpoint.isEmpty()) && (region == null || region.isEmpty())) {
+            throw TtsException.of("Azure 区域和地址不能都为空");
+        }
+        this.subscriptionKey = subscriptionKey;
+        this.endpoint = endpoint == null || endpoint.isEmpty()
+                ? "wss://" + region + ".tts.speech.microsoft.com/cognitiveservices/websocket/v1"
+                : endpoint;
+    }
+
+    @Override
+    public Request connectRequest() {
+        return new Request.Builder()
+                .url(endpoint + (endpoint.contains("?") ? "&" : "?") + "X-ConnectionId=" + Tools.getRandomId())
+                .addHeader("Ocp-Apim-Subscription-Key", subscriptionKey)
+                .addHeader("User-Agent", TtsConstants.UA)
+                .build();
+    }
+
+    @Override
+    public List<String> configMessages(OutputFormat format) {
+        return Collections.singletonList(String.format(SPEECH_CONFIG, Tools.date()));
+    }
+
+    @Override
+    public String synthesisContext(String requestId, OutputFormat format) {
+        OutputFormat outputFormat = Optional.ofNullable(format).orElse(OutputFormat.audio_24khz_48kbitrate_mono_mp3);
+        return String.format(SYNTHESIS_CONTEXT, requestId, Tools.date(), outputFormat.getValue());
+    }
+
+    @Override
+    public String name() {
+        return "azure";
+    }
+}
@@ -0,0 +1,33 @@
+package io.ikfly.backend;
+
+import io.ikfly.constant.TtsConstants;
+import io.ikfly.util.Tools;
+import okhttp3.Request;
+
+/**
+ * Edge 浏览器朗读服务，默认的服务端；每次连接生成新的 Sec-MS-GEC 令牌
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class EdgeBackend implements SynthesisBackend {
+
+    @Override
+    public Request connectRequest() {
+        String url = TtsConstants.EDGE_SPEECH_WSS +
+                "?Retry-After=200&TrustedClientToken=" + TtsConstants.TRUSTED_CLIENT_TOKEN +
+                "&ConnectionId=" + Tools.getRandomId()
+                + "&Sec-MS-GEC=" + Tools.generateSecMsGecToken(TtsConstants.TRUSTED_CLIENT_TOKEN)
+                + "&Sec-MS-GEC-Version=" + TtsConstants.SEC_MS_GEC_VERSION;
+        return new Request.Builder()
+                .url(url)
+                .addHeader("User-Agent", TtsConstants.UA)
+                .addHeader("Origin", TtsConstants.EDGE_SPEECH_ORIGIN)
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return "edge";
+    }
+}
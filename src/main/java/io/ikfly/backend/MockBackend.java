@@ -0,0 +1,57 @@
+package io.ikfly.backend;
+
+import io.ikfly.exceptions.TtsException;
+import okhttp3.Request;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 连接本地模拟服务端，用于离线压测和基准测试；不指定服务端时在随机端口上启动一个，关闭时一并关闭
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class MockBackend implements SynthesisBackend, Closeable {
+
+    private final MockTtsServer server;
+    private final boolean ownsServer;
+
+    public MockBackend() {
+        try {
+            this.server = new MockTtsServer();
+        } catch (IOException e) {
+            throw TtsException.of("模拟合成服务启动失败，" + e.getMessage());
+        }
+        this.ownsServer = true;
+    }
+
+    public MockBackend(MockTtsServer server) {
+        this.server = server;
+        this.ownsServer = false;
+    }
+
+    /**
+     * 模拟服务端，可调整延迟、音频大小和断线概率
+     */
+    public MockTtsServer getServer() {
+        return server;
+    }
+
+    @Override
+    public Request connectRequest() {
+        return new Request.Builder().url(server.getUrl()).build();
+    }
+
+    @Override
+    public String name() {
+        return "mock";
+    }
+
+    @Override
+    public void close() {
+        if (ownsServer) {
+            server.close();
+        }
+    }
+}
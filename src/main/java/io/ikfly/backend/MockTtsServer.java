@@ -0,0 +1,425 @@
+package io.ikfly.backend;
+
+import io.ikfly.util.Tools;
+import io.ikfly.util.VirtualThreads;
+import okio.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地模拟的合成服务端：在 127.0.0.1 上监听，手写 ws 握手和帧编解码，
+ * 按与 Edge 相同的协议对每个 ssml 请求依次返回 turn.start、audio.metadata（词边界）、音频帧和 turn.end。
+ * 音频内容为填充字节，长度与文本长度成正比；延迟和断线概率可配置，用于离线压测和基准测试
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class MockTtsServer implements Closeable {
+
+    public static final Logger log = LoggerFactory.getLogger(MockTtsServer.class);
+
+    private static final String WS_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final Pattern PROSODY = Pattern.compile("<prosody[^>]*>(.*?)</prosody>", Pattern.DOTALL);
+    /**
+     * 每个字符对应的音频时长，100 纳秒
+     */
+    private static final long TICKS_PER_CHAR = 2_000_000;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = VirtualThreads.newExecutor("tts-mock");
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requests = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * 握手前的延迟
+     */
+    private volatile long connectDelayMillis;
+    /**
+     * 收到 ssml 到首个音频帧的延迟
+     */
+    private volatile long firstAudioDelayMillis = 50;
+    /**
+     * 相邻音频帧之间的延迟
+     */
+    private volatile long chunkIntervalMillis;
+    /**
+     * 每个字符的音频字节数
+     */
+    private volatile int bytesPerChar = 600;
+    /**
+     * 单个音频帧的最大字节数
+     */
+    private volatile int chunkSize = 4096;
+    /**
+     * 每个请求在返回音频途中断开连接的概率
+     */
+    private volatile double disconnectProbability;
+    /**
+     * 文本包含该内容的请求必定在返回音频途中断开连接
+     */
+    private volatile String disconnectText;
+
+    /**
+     * 在随机端口上启动
+     */
+    public MockTtsServer() throws IOException {
+        this(0);
+    }
+
+    public MockTtsServer(int port) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        Thread acceptor = new Thread(this::acceptLoop, "tts-mock-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("模拟合成服务已启动：{}", getUrl());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public String getUrl() {
+        return "ws://127.0.0.1:" + getPort() + "/";
+    }
+
+    /**
+     * @return 收到的 ssml 请求数
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public void setConnectDelayMillis(long connectDelayMillis) {
+        this.connectDelayMillis = connectDelayMillis;
+    }
+
+    public void setFirstAudioDelayMillis(long firstAudioDelayMillis) {
+        this.firstAudioDelayMillis = firstAudioDelayMillis;
+    }
+
+    public void setChunkIntervalMillis(long chunkIntervalMillis) {
+        this.chunkIntervalMillis = chunkIntervalMillis;
+    }
+
+    public void setBytesPerChar(int bytesPerChar) {
+        this.bytesPerChar = bytesPerChar;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setDisconnectProbability(double disconnectProbability) {
+        this.disconnectProbability = disconnectProbability;
+    }
+
+    public void setDisconnectText(String disconnectText) {
+        this.disconnectText = disconnectText;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException ignore) {
+            // 关闭中
+        }
+        for (Socket socket : sockets) {
+            closeQuietly(socket);
+        }
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    log.warn("模拟合成服务接收连接失败：{}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            Connection connection = new Connection(socket, new BufferedOutputStream(socket.getOutputStream()));
+            sleep(connectDelayMillis);
+            handshake(in, connection.out);
+            readLoop(in, connection);
+        } catch (EOFException | SocketException ignore) {
+            // 客户端断开
+        } catch (IOException e) {
+            log.debug("模拟连接异常：{}", e.getMessage());
+        } finally {
+            sockets.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private static void handshake(InputStream in, OutputStream out) throws IOException {
+        String key = null;
+        String line;
+        while (!(line = readLine(in)).isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && "Sec-WebSocket-Key".equalsIgnoreCase(line.substring(0, colon).trim())) {
+                key = line.substring(colon + 1).trim();
+            }
+        }
+        if (key == null) {
+            out.write("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            throw new IOException("缺少 Sec-WebSocket-Key");
+        }
+        String accept = ByteString.encodeUtf8(key + WS_GUID).sha1().base64();
+        out.write(("HTTP/1.1 101 Switching Protocols\r\n" +
+                "Upgrade: websocket\r\n" +
+                "Connection: Upgrade\r\n" +
+                "Sec-WebSocket-Accept: " + accept + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new EOFException();
+            }
+            if (c != '\r') {
+                sb.append((char) c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void readLoop(DataInputStream in, Connection connection) throws IOException {
+        while (!closed) {
+            int b0 = in.readUnsignedByte();
+            int b1 = in.readUnsignedByte();
+            int opcode = b0 & 0x0F;
+            long length = b1 & 0x7F;
+            if (length == 126) {
+                length = in.readUnsignedShort();
+            } else if (length == 127) {
+                length = in.readLong();
+            }
+            byte[] mask = new byte[4];
+            if ((b1 & 0x80) != 0) {
+                in.readFully(mask);
+            }
+            byte[] payload = new byte[(int) length];
+            in.readFully(payload);
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i & 3];
+            }
+            switch (opcode) {
+                case 0x1:
+                    onText(connection, new String(payload, StandardCharsets.UTF_8));
+                    break;
+                case 0x8:
+                    connection.send(0x8, payload);
+                    return;
+                case 0x9:
+                    connection.send(0xA, payload);
+                    break;
+                default:
+                    // 二进制帧和 PONG 忽略
+            }
+        }
+    }
+
+    private void onText(Connection connection, String message) {
+        if (!"ssml".equals(Tools.getHeader(message, "Path"))) {
+            return;
+        }
+        requests.incrementAndGet();
+        String requestId = Tools.getHeader(message, "X-RequestId");
+        Matcher matcher = PROSODY.matcher(message);
+        String text = matcher.find() ? matcher.group(1) : "";
+        executor.execute(() -> {
+            try {
+                respond(connection, requestId == null ? "" : requestId, text);
+            } catch (IOException e) {
+                log.debug("模拟响应中断：{}", e.getMessage());
+                closeQuietly(connection.socket);
+            }
+        });
+    }
+
+    private void respond(Connection connection, String requestId, String text) throws IOException {
+        connection.sendText(textMessage(requestId, "turn.start", "{\"context\":{\"serviceTag\":\"mock\"}}"));
+        sleep(firstAudioDelayMillis);
+        // 词边界
+        List<int[]> words = words(text);
+        StringBuilder metadata = new StringBuilder("{\"Metadata\":[");
+        for (int i = 0; i < words.size(); i++) {
+            int[] word = words.get(i);
+            String w = text.substring(word[0], word[1]);
+            if (i > 0) {
+                metadata.append(',');
+            }
+            metadata.append("{\"Type\":\"WordBoundary\",\"Data\":{\"Offset\":").append(word[0] * TICKS_PER_CHAR + 1_000_000)
+                    .append(",\"Duration\":").append((word[1] - word[0]) * TICKS_PER_CHAR)
+                    .append(",\"text\":{\"Text\":\"").append(w.replace("\\", "\\\\").replace("\"", "\\\""))
+                    .append("\",\"Length\":").append(w.length()).append(",\"BoundaryType\":\"WordBoundary\"}}}");
+        }
+        metadata.append("]}");
+        if (!words.isEmpty()) {
+            connection.sendText(textMessage(requestId, "audio.metadata", metadata.toString()));
+        }
+        // 音频帧
+        byte[] header = ("X-RequestId:" + requestId + "\r\nContent-Type:audio/mpeg\r\nPath:audio\r\n").getBytes(StandardCharsets.US_ASCII);
+        int remaining = Math.max(1, text.length()) * bytesPerChar;
+        String dropText = disconnectText;
+        boolean drop = ThreadLocalRandom.current().nextDouble() < disconnectProbability
+                || dropText != null && text.contains(dropText);
+        int sent = 0;
+        while (remaining > 0) {
+            if (drop && sent > 0) {
+                log.debug("模拟断线：{}", requestId);
+                closeQuietly(connection.socket);
+                return;
+            }
+            int n = Math.min(remaining, chunkSize);
+            byte[] frame = new byte[2 + header.length + n];
+            frame[0] = (byte) (header.length >> 8);
+            frame[1] = (byte) header.length;
+            System.arraycopy(header, 0, frame, 2, header.length);
+            for (int i = 2 + header.length; i < frame.length; i++) {
+                frame[i] = (byte) i;
+            }
+            connection.send(0x2, frame);
+            remaining -= n;
+            sent++;
+            if (remaining > 0) {
+                sleep(chunkIntervalMillis);
+            }
+        }
+        connection.sendText(textMessage(requestId, "turn.end", "{}"));
+    }
+
+    /**
+     * 切分词：连续的字母数字为一个词，中日韩文字每个字为一个词
+     *
+     * @return 每个词的 [起始, 结束)
+     */
+    private static List<int[]> words(String text) {
+        List<int[]> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean cjk = Character.isIdeographic(c);
+            if (Character.isLetterOrDigit(c) && !cjk) {
+                if (start < 0) {
+                    start = i;
+                }
+                continue;
+            }
+            if (start >= 0) {
+                words.add(new int[]{start, i});
+                start = -1;
+            }
+            if (cjk) {
+                words.add(new int[]{i, i + 1});
+            }
+        }
+        if (start >= 0) {
+            words.add(new int[]{start, text.length()});
+        }
+        return words;
+    }
+
+    private static String textMessage(String requestId, String path, String body) {
+        return "X-RequestId:" + requestId + "\r\n" +
+                "Content-Type:application/json; charset=utf-8\r\n" +
+                "Path:" + path + "\r\n\r\n" + body;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignore) {
+            // 已关闭
+        }
+    }
+
+    /**
+     * 一个客户端连接，服务端帧不加掩码，写出加锁以便多个请求同时返回
+     */
+    private static class Connection {
+        private final Socket socket;
+        private final OutputStream out;
+
+        Connection(Socket socket, OutputStream out) {
+            this.socket = socket;
+            this.out = out;
+        }
+
+        void sendText(String text) throws IOException {
+            send(0x1, text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        synchronized void send(int opcode, byte[] payload) throws IOException {
+            out.write(0x80 | opcode);
+            if (payload.length < 126) {
+                out.write(payload.length);
+            } else if (payload.length <= 0xFFFF) {
+                out.write(126);
+                out.write(payload.length >> 8);
+                out.write(payload.length);
+            } else {
+                out.write(127);
+                long length = payload.length;
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    out.write((int) (length >> shift));
+                }
+            }
+            out.write(payload);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.ikfly.backend;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.model.SpeechConfig;
+import okhttp3.Request;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 语音合成服务端：提供 ws 连接请求和连接上的配置消息，消息协议（ssml、turn.start、audio、turn.end）相同
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public interface SynthesisBackend {
+
+    /**
+     * 建立 ws 连接的请求，每次连接都会调用，令牌等需要在这里重新生成
+     *
+     * @return
+     */
+    Request connectRequest();
+
+    /**
+     * 连接建立后和切换输出格式时发送的配置消息
+     *
+     * @param format 音频输出格式
+     * @return
+     */
+    default List<String> configMessages(OutputFormat format) {
+        return Collections.singletonList(SpeechConfig.of(format).toString());
+    }
+
+    /**
+     * 每个合成请求在 ssml 之前发送的消息
+     *
+     * @param requestId 请求 id
+     * @param format    音频输出格式
+     * @return 不需要时返回 null
+     */
+    default String synthesisContext(String requestId, OutputFormat format) {
+        return null;
+    }
+
+    /**
+     * 名称，仅用于日志
+     */
+    default String name() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,87 @@
+package io.ikfly.cache;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.constant.VoiceEnum;
+import io.ikfly.model.SSML;
+import okio.ByteString;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * 合成音频缓存，相同文本、语音、语速、音量和输出格式的请求直接返回缓存的音频
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public interface AudioCache {
+
+    /**
+     * 读取缓存
+     *
+     * @param key {@link #key(SSML, OutputFormat)}
+     * @return 未命中时返回 null
+     */
+    ByteString get(String key);
+
+    /**
+     * 写入缓存
+     *
+     * @param key   {@link #key(SSML, OutputFormat)}
+     * @param audio 音频数据
+     */
+    void put(String key, ByteString audio);
+
+    /**
+     * 按输出格式读取缓存，按格式分开存储的实现可以覆盖此方法
+     *
+     * @param key    {@link #key(SSML, OutputFormat)}
+     * @param format 音频输出格式
+     * @return 未命中时返回 null
+     */
+    default ByteString get(String key, OutputFormat format) {
+        return get(key);
+    }
+
+    /**
+     * 按输出格式写入缓存，按格式分开存储的实现可以覆盖此方法
+     *
+     * @param key    {@link #key(SSML, OutputFormat)}
+     * @param format 音频输出格式
+     * @param audio  音频数据
+     */
+    default void put(String key, OutputFormat format, ByteString audio) {
+        put(key, audio);
+    }
+
+    /**
+     * 按输出格式读取缓存的只读视图，流式合成命中缓存时使用，视图直接交给 listener。
+     * 默认包装 {@link #get(String, OutputFormat)} 的结果，能直接暴露底层数据的实现（如内存映射）可以覆盖此方法避免拷贝
+     *
+     * @param key    {@link #key(SSML, OutputFormat)}
+     * @param format 音频输出格式
+     * @return 未命中时返回 null
+     */
+    default ByteBuffer getBuffer(String key, OutputFormat format) {
+        ByteString audio = get(key, format);
+        return audio == null ? null : audio.asByteBuffer();
+    }
+
+    /**
+     * 缓存 key：合成请求正文（不含 X-RequestId、X-Timestamp）与输出格式的 SHA-256
+     *
+     * @param ssml
+     * @param format 实际的音频输出格式
+     * @return
+     */
+    static String key(SSML ssml, OutputFormat format) {
+        VoiceEnum voice = Optional.ofNullable(ssml.getVoice()).orElse(VoiceEnum.zh_CN_XiaoxiaoNeural);
+        String body = format.getValue() + '\n' +
+                voice.getShortName() + '\n' +
+                Optional.ofNullable(ssml.getRate()).orElse("+0%") + '\n' +
+                Optional.ofNullable(ssml.getVolume()).orElse("+0%") + '\n' +
+                ssml.getSynthesisText();
+        return ByteString.encodeString(body, StandardCharsets.UTF_8).sha256().hex();
+    }
+}
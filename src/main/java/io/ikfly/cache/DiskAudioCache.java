@@ -0,0 +1,81 @@
+package io.ikfly.cache;
+
+import io.ikfly.exceptions.TtsException;
+import okio.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 磁盘缓存，每条音频一个文件，文件名即缓存 key
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class DiskAudioCache implements AudioCache {
+
+    public static final Logger log = LoggerFactory.getLogger(DiskAudioCache.class);
+
+    private final Path directory;
+
+    /**
+     * @param directory 缓存目录，不存在时创建
+     */
+    public DiskAudioCache(String directory) {
+        this.directory = Paths.get(directory);
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw TtsException.of("创建缓存目录失败，" + e.getMessage());
+        }
+    }
+
+    /**
+     * 在音频保存目录下创建缓存目录 .tts-cache
+     *
+     * @param baseSavePath 保存音频文件的目录，为空时使用工作目录
+     * @return
+     */
+    public static DiskAudioCache under(String baseSavePath) {
+        return new DiskAudioCache((baseSavePath == null ? "" : baseSavePath) + ".tts-cache");
+    }
+
+    @Override
+    public ByteString get(String key) {
+        try {
+            return ByteString.of(Files.readAllBytes(directory.resolve(key)));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("读取缓存失败：{}，{}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, ByteString audio) {
+        Path target = directory.resolve(key);
+        try {
+            // 先写临时文件再改名，读取方不会读到写了一半的文件
+            Path temp = Files.createTempFile(directory, key, ".tmp");
+            try {
+                Files.write(temp, audio.toByteArray());
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("写入缓存失败：{}，{}", key, e.getMessage());
+        }
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
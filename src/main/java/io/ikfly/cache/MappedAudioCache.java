@@ -0,0 +1,430 @@
+package io.ikfly.cache;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.exceptions.TtsException;
+import okio.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存映射的持久化缓存：每种输出格式一个只追加的段文件（.seg）和一个索引文件（.idx）。
+ * 启动时只读取已知格式的索引文件，不扫描目录。
+ * {@link #getBuffer}、{@link #slice} 返回段文件的只读映射切片，不拷贝，流式合成命中缓存时使用；
+ * {@link #get} 返回的 ByteString 是堆上的拷贝，用于需要在结果中带回音频数据的请求。
+ * <p>
+ * 段文件按固定大小的区域映射，每个区域映射一次后一直保留，追加数据不会引起重新映射，段文件大小不受 2GB 限制；
+ * 单条音频不跨区域存放，放不下时从下一个区域开始（留下的空洞在支持稀疏文件的文件系统上不占空间），
+ * 超过区域大小的音频读取时单独映射。
+ * <p>
+ * 索引记录 44 字节：32 字节 key（SHA-256） + 8 字节偏移 + 4 字节长度，同一 key 以最后一条为准
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class MappedAudioCache implements AudioCache, Closeable {
+
+    public static final Logger log = LoggerFactory.getLogger(MappedAudioCache.class);
+
+    private static final int RECORD_SIZE = 32 + 8 + 4;
+    /**
+     * 未指定输出格式时使用的段名
+     */
+    private static final String DEFAULT_SEGMENT = "default";
+    /**
+     * 默认的映射区域大小
+     */
+    public static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+    private final Path directory;
+    private final int regionSize;
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory 缓存目录，不存在时创建
+     */
+    public MappedAudioCache(String directory) {
+        this(directory, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * @param directory  缓存目录，不存在时创建
+     * @param regionSize 映射区域大小，应大于单条音频的大小
+     */
+    public MappedAudioCache(String directory, int regionSize) {
+        if (regionSize < 4096) {
+            throw TtsException.of("映射区域不能小于 4KB");
+        }
+        this.directory = Paths.get(directory);
+        this.regionSize = regionSize;
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw TtsException.of("创建缓存目录失败，" + e.getMessage());
+        }
+        // 按已知的段名打开已有的索引
+        for (OutputFormat format : OutputFormat.values()) {
+            openIfExists(format.getValue());
+        }
+        openIfExists(DEFAULT_SEGMENT);
+    }
+
+    @Override
+    public ByteString get(String key) {
+        for (Segment segment : segments.values()) {
+            ByteBuffer slice = segment.slice(key);
+            if (slice != null) {
+                return ByteString.of(slice);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public ByteString get(String key, OutputFormat format) {
+        ByteBuffer slice = slice(key, format);
+        return slice == null ? null : ByteString.of(slice);
+    }
+
+    @Override
+    public ByteBuffer getBuffer(String key, OutputFormat format) {
+        return slice(key, format);
+    }
+
+    /**
+     * 读取缓存的只读映射切片，不拷贝音频数据
+     *
+     * @param key
+     * @param format
+     * @return 未命中时返回 null
+     */
+    public ByteBuffer slice(String key, OutputFormat format) {
+        Segment segment = segments.get(segmentName(format));
+        return segment == null ? null : segment.slice(key);
+    }
+
+    @Override
+    public void put(String key, ByteString audio) {
+        segment(DEFAULT_SEGMENT).append(key, audio);
+    }
+
+    @Override
+    public void put(String key, OutputFormat format, ByteString audio) {
+        segment(segmentName(format)).append(key, audio);
+    }
+
+    /**
+     * @return 所有段中的条目数
+     */
+    public int size() {
+        return segments.values().stream().mapToInt(Segment::size).sum();
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private static String segmentName(OutputFormat format) {
+        return format == null ? DEFAULT_SEGMENT : format.getValue();
+    }
+
+    private void openIfExists(String name) {
+        if (Files.exists(directory.resolve(name + ".idx"))) {
+            segment(name);
+        }
+    }
+
+    private Segment segment(String name) {
+        return segments.computeIfAbsent(name, n -> new Segment(directory.resolve(n + ".seg"), directory.resolve(n + ".idx"), regionSize));
+    }
+
+    /**
+     * 把 key 转成 32 字节摘要，{@link AudioCache#key} 生成的十六进制 SHA-256 直接解码
+     */
+    static ByteString digest(String key) {
+        if (key.length() == 64) {
+            try {
+                return ByteString.decodeHex(key);
+            } catch (IllegalArgumentException ignore) {
+                // 不是十六进制，按普通字符串处理
+            }
+        }
+        return ByteString.encodeString(key, StandardCharsets.UTF_8).sha256();
+    }
+
+    /**
+     * 一种输出格式的段文件和索引
+     */
+    private static class Segment implements Closeable {
+
+        private final FileChannel data;
+        private final FileChannel index;
+        private final DigestIndex entries = new DigestIndex();
+        private final int regionSize;
+        /**
+         * 下一条音频的写入位置
+         */
+        private long dataSize;
+        /**
+         * 已映射的区域，下标为 偏移 / regionSize，映射后不再替换
+         */
+        private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+
+        Segment(Path dataPath, Path indexPath, int regionSize) {
+            this.regionSize = regionSize;
+            try {
+                data = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                index = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                load();
+            } catch (IOException e) {
+                throw TtsException.of("打开缓存段失败：" + dataPath + "，" + e.getMessage());
+            }
+        }
+
+        /**
+         * 读取索引文件；数据未完整写入的记录和末尾不完整的记录被丢弃。
+         * 映射区域时段文件会被扩展到区域末尾，写入位置取有效记录的末尾而不是文件大小
+         */
+        private void load() throws IOException {
+            long fileSize = data.size();
+            long records = index.size() / RECORD_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+            long position = 0;
+            long valid = 0;
+            while (position < records * RECORD_SIZE) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), records * RECORD_SIZE - position));
+                while (buffer.hasRemaining()) {
+                    if (index.read(buffer, position + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    long k0 = buffer.getLong();
+                    long k1 = buffer.getLong();
+                    long k2 = buffer.getLong();
+                    long k3 = buffer.getLong();
+                    long offset = buffer.getLong();
+                    int length = buffer.getInt();
+                    if (offset >= 0 && length > 0 && offset + length <= fileSize) {
+                        entries.put(k0, k1, k2, k3, offset, length);
+                        dataSize = Math.max(dataSize, offset + length);
+                        valid = position + buffer.position();
+                    }
+                }
+                position += buffer.limit();
+            }
+            // 截掉无效的尾部，后续追加从有效位置开始
+            index.truncate(valid);
+            index.position(valid);
+        }
+
+        int size() {
+            synchronized (this) {
+                return entries.size();
+            }
+        }
+
+        ByteBuffer slice(String key) {
+            ByteBuffer digest = digest(key).asByteBuffer();
+            long offset;
+            int length;
+            synchronized (this) {
+                int slot = entries.find(digest.getLong(0), digest.getLong(8), digest.getLong(16), digest.getLong(24));
+                if (slot < 0) {
+                    return null;
+                }
+                offset = entries.offset(slot);
+                length = entries.length(slot);
+            }
+            int region = (int) (offset / regionSize);
+            int start = (int) (offset % regionSize);
+            if (start + (long) length > regionSize) {
+                // 超过区域大小（或按其他区域大小写入）的音频单独映射
+                try {
+                    return data.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                } catch (IOException e) {
+                    throw TtsException.of("映射缓存段失败，" + e.getMessage());
+                }
+            }
+            ByteBuffer slice = region(region).duplicate();
+            slice.position(start);
+            slice.limit(start + length);
+            return slice.slice();
+        }
+
+        synchronized void append(String key, ByteString audio) {
+            ByteBuffer digest = digest(key).asByteBuffer();
+            long k0 = digest.getLong(0);
+            long k1 = digest.getLong(8);
+            long k2 = digest.getLong(16);
+            long k3 = digest.getLong(24);
+            int length = audio.size();
+            if (length == 0 || entries.find(k0, k1, k2, k3) >= 0) {
+                return;
+            }
+            long offset = dataSize;
+            long start = offset % regionSize;
+            if (start != 0 && (start + length > regionSize)) {
+                // 不跨区域存放，从下一个区域开始
+                offset += regionSize - start;
+            }
+            try {
+                // 按 ByteString 的分段直接写入文件通道，不合并为中间数组
+                data.position(offset);
+                audio.write(Channels.newOutputStream(data));
+                dataSize = offset + length;
+                ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+                record.putLong(k0).putLong(k1).putLong(k2).putLong(k3).putLong(offset).putInt(length);
+                record.flip();
+                while (record.hasRemaining()) {
+                    index.write(record);
+                }
+                entries.put(k0, k1, k2, k3, offset, length);
+            } catch (IOException e) {
+                log.warn("写入缓存失败：{}，{}", key, e.getMessage());
+            }
+        }
+
+        /**
+         * 第 i 个区域的只读映射，首次访问时映射整个区域（段文件不足时扩展到区域末尾）
+         */
+        private MappedByteBuffer region(int i) {
+            MappedByteBuffer[] current = regions;
+            if (i < current.length && current[i] != null) {
+                return current[i];
+            }
+            synchronized (this) {
+                current = regions;
+                if (i < current.length && current[i] != null) {
+                    return current[i];
+                }
+                MappedByteBuffer mapped;
+                try {
+                    long position = (long) i * regionSize;
+                    if (data.size() < position + regionSize) {
+                        // 只读映射不能超出文件末尾，先扩展为稀疏文件
+                        data.write(ByteBuffer.allocate(1), position + regionSize - 1);
+                    }
+                    mapped = data.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+                } catch (IOException e) {
+                    throw TtsException.of("映射缓存段失败，" + e.getMessage());
+                }
+                MappedByteBuffer[] updated = Arrays.copyOf(current, Math.max(current.length, i + 1));
+                updated[i] = mapped;
+                regions = updated;
+                return mapped;
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                data.close();
+                index.close();
+            } catch (IOException e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 开放寻址的摘要索引，全部使用基本类型数组，每条 44 字节
+     */
+    private static class DigestIndex {
+        private long[] keys = new long[16 * 4];
+        private long[] offsets = new long[16];
+        private int[] lengths = new int[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        long offset(int slot) {
+            return offsets[slot];
+        }
+
+        int length(int slot) {
+            return lengths[slot];
+        }
+
+        int find(long k0, long k1, long k2, long k3) {
+            int mask = lengths.length - 1;
+            for (int slot = (int) k0 & mask; ; slot = (slot + 1) & mask) {
+                if (lengths[slot] == 0) {
+                    return -1;
+                }
+                int base = slot * 4;
+                if (keys[base] == k0 && keys[base + 1] == k1 && keys[base + 2] == k2 && keys[base + 3] == k3) {
+                    return slot;
+                }
+            }
+        }
+
+        void put(long k0, long k1, long k2, long k3, long offset, int length) {
+            if (length <= 0) {
+                // 长度 0 表示空槽，空音频不入索引
+                return;
+            }
+            if ((size + 1) * 4 > lengths.length * 3) {
+                resize();
+            }
+            int mask = lengths.length - 1;
+            int slot = (int) k0 & mask;
+            while (lengths[slot] != 0) {
+                int base = slot * 4;
+                if (keys[base] == k0 && keys[base + 1] == k1 && keys[base + 2] == k2 && keys[base + 3] == k3) {
+                    offsets[slot] = offset;
+                    lengths[slot] = length;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            int base = slot * 4;
+            keys[base] = k0;
+            keys[base + 1] = k1;
+            keys[base + 2] = k2;
+            keys[base + 3] = k3;
+            offsets[slot] = offset;
+            lengths[slot] = length;
+            size++;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldOffsets = offsets;
+            int[] oldLengths = lengths;
+            int capacity = oldLengths.length * 2;
+            keys = new long[capacity * 4];
+            offsets = new long[capacity];
+            lengths = new int[capacity];
+            size = 0;
+            for (int slot = 0; slot < oldLengths.length; slot++) {
+                if (oldLengths[slot] != 0) {
+                    int base = slot * 4;
+                    put(oldKeys[base], oldKeys[base + 1], oldKeys[base + 2], oldKeys[base + 3], oldOffsets[slot], oldLengths[slot]);
+                }
+            }
+        }
+    }
+}
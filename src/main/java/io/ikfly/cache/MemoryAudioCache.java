@@ -0,0 +1,88 @@
+package io.ikfly.cache;
+
+import io.ikfly.exceptions.TtsException;
+import okio.ByteString;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内存 LRU 缓存，按音频总字节数淘汰最久未使用的条目
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class MemoryAudioCache implements AudioCache {
+
+    /**
+     * 缓存音频总字节数上限
+     */
+    private final long maxBytes;
+    private long currentBytes;
+    private final LinkedHashMap<String, ByteString> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public MemoryAudioCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw TtsException.of("缓存大小必须大于0");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public ByteString get(String key) {
+        ByteString audio;
+        synchronized (this) {
+            audio = entries.get(key);
+        }
+        (audio == null ? misses : hits).increment();
+        return audio;
+    }
+
+    @Override
+    public synchronized void put(String key, ByteString audio) {
+        if (audio.size() > maxBytes) {
+            return;
+        }
+        ByteString previous = entries.put(key, audio);
+        if (previous != null) {
+            currentBytes -= previous.size();
+        }
+        currentBytes += audio.size();
+        Iterator<Map.Entry<String, ByteString>> iterator = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, ByteString> eldest = iterator.next();
+            currentBytes -= eldest.getValue().size();
+            iterator.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+}
@@ -0,0 +1,75 @@
+package io.ikfly.cache;
+
+import io.ikfly.constant.OutputFormat;
+import okio.ByteString;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 两级缓存：先查第一级（通常是内存），未命中再查第二级（通常是磁盘）并回填第一级
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class TieredAudioCache implements AudioCache {
+
+    private final AudioCache first;
+    private final AudioCache second;
+
+    public TieredAudioCache(AudioCache first, AudioCache second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public ByteString get(String key) {
+        ByteString audio = first.get(key);
+        if (audio == null) {
+            audio = second.get(key);
+            if (audio != null) {
+                first.put(key, audio);
+            }
+        }
+        return audio;
+    }
+
+    @Override
+    public void put(String key, ByteString audio) {
+        first.put(key, audio);
+        second.put(key, audio);
+    }
+
+    @Override
+    public ByteString get(String key, OutputFormat format) {
+        ByteString audio = first.get(key, format);
+        if (audio == null) {
+            audio = second.get(key, format);
+            if (audio != null) {
+                first.put(key, format, audio);
+            }
+        }
+        return audio;
+    }
+
+    /**
+     * 第一级命中时返回第一级的视图（为内存映射缓存时不拷贝），第二级命中时回填第一级
+     */
+    @Override
+    public ByteBuffer getBuffer(String key, OutputFormat format) {
+        ByteBuffer audio = first.getBuffer(key, format);
+        if (audio == null) {
+            ByteString promoted = second.get(key, format);
+            if (promoted != null) {
+                first.put(key, format, promoted);
+                audio = promoted.asByteBuffer();
+            }
+        }
+        return audio;
+    }
+
+    @Override
+    public void put(String key, OutputFormat format, ByteString audio) {
+        first.put(key, format, audio);
+        second.put(key, format, audio);
+    }
+}
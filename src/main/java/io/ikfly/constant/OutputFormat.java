@@ -8,44 +8,216 @@ package io.ikfly.constant;
  */
 public enum OutputFormat {
     /**
-     * 音频输出格式 统一输出 MP3,其他不知怎么解码
-     */
-    amr_wb_16000hz("amr-wb-16000hz"),
-    audio_16khz_16bit_32kbps_mono_opus("audio-16khz-16bit-32kbps-mono-opus"),
-    audio_16khz_32kbitrate_mono_mp3("audio-16khz-32kbitrate-mono-mp3"),
-    audio_16khz_64kbitrate_mono_mp3("audio-16khz-64kbitrate-mono-mp3"),
-    audio_16khz_128kbitrate_mono_mp3("audio-16khz-128kbitrate-mono-mp3"),
-    audio_24khz_16bit_24kbps_mono_opus("audio-24khz-16bit-24kbps-mono-opus"),
-    audio_24khz_16bit_48kbps_mono_opus("audio-24khz-16bit-48kbps-mono-opus"),
-    audio_24khz_48kbitrate_mono_mp3("audio-24khz-48kbitrate-mono-mp3"),// 推荐
-    audio_24khz_96kbitrate_mono_mp3("audio-24khz-96kbitrate-mono-mp3"),
-    audio_24khz_160kbitrate_mono_mp3("audio-24khz-160kbitrate-mono-mp3"),
-    audio_48khz_96kbitrate_mono_mp3("audio-48khz-96kbitrate-mono-mp3"),
-    audio_48khz_192kbitrate_mono_mp3("audio-48khz-192kbitrate-mono-mp3"),
-    ogg_16khz_16bit_mono_opus("ogg-16khz-16bit-mono-opus"),
-    ogg_24khz_16bit_mono_opus("ogg-24khz-16bit-mono-opus"),
-    ogg_48khz_16bit_mono_opus("ogg-48khz-16bit-mono-opus"),
-    raw_8khz_8bit_mono_alaw("raw-8khz-8bit-mono-alaw"),
-    raw_8khz_8bit_mono_mulaw("raw-8khz-8bit-mono-mulaw"),
-    raw_8khz_16bit_mono_pcm("raw-8khz-16bit-mono-pcm"),
-    raw_16khz_16bit_mono_pcm("raw-16khz-16bit-mono-pcm"),
-    raw_16khz_16bit_mono_truesilk("raw-16khz-16bit-mono-truesilk"),
-    raw_22050hz_16bit_mono_pcm("raw-22050hz-16bit-mono-pcm"),
-    raw_24khz_16bit_mono_pcm("raw-24khz-16bit-mono-pcm"),
-    raw_24khz_16bit_mono_truesilk("raw-24khz-16bit-mono-truesilk"),
-    raw_44100hz_16bit_mono_pcm("raw-44100hz-16bit-mono-pcm"),
-    raw_48khz_16bit_mono_pcm("raw-48khz-16bit-mono-pcm"),
-    webm_16khz_16bit_mono_opus("webm-16khz-16bit-mono-opus"),
-    webm_24khz_16bit_24kbps_mono_opus("webm-24khz-16bit-24kbps-mono-opus"),
-    webm_24khz_16bit_mono_opus("webm-24khz-16bit-mono-opus"),
+     * 音频输出格式：值、采样率、采样位数、码率、容器、编码
+     */
+    amr_wb_16000hz("amr-wb-16000hz", 16000, 16, 0, Container.AMR, Codec.AMR_WB),
+    audio_16khz_16bit_32kbps_mono_opus("audio-16khz-16bit-32kbps-mono-opus", 16000, 16, 32, Container.RAW, Codec.OPUS),
+    audio_16khz_32kbitrate_mono_mp3("audio-16khz-32kbitrate-mono-mp3", 16000, 16, 32, Container.MPEG, Codec.MP3),
+    audio_16khz_64kbitrate_mono_mp3("audio-16khz-64kbitrate-mono-mp3", 16000, 16, 64, Container.MPEG, Codec.MP3),
+    audio_16khz_128kbitrate_mono_mp3("audio-16khz-128kbitrate-mono-mp3", 16000, 16, 128, Container.MPEG, Codec.MP3),
+    audio_24khz_16bit_24kbps_mono_opus("audio-24khz-16bit-24kbps-mono-opus", 24000, 16, 24, Container.RAW, Codec.OPUS),
+    audio_24khz_16bit_48kbps_mono_opus("audio-24khz-16bit-48kbps-mono-opus", 24000, 16, 48, Container.RAW, Codec.OPUS),
+    audio_24khz_48kbitrate_mono_mp3("audio-24khz-48kbitrate-mono-mp3", 24000, 16, 48, Container.MPEG, Codec.MP3),// 推荐
+    audio_24khz_96kbitrate_mono_mp3("audio-24khz-96kbitrate-mono-mp3", 24000, 16, 96, Container.MPEG, Codec.MP3),
+    audio_24khz_160kbitrate_mono_mp3("audio-24khz-160kbitrate-mono-mp3", 24000, 16, 160, Container.MPEG, Codec.MP3),
+    audio_48khz_96kbitrate_mono_mp3("audio-48khz-96kbitrate-mono-mp3", 48000, 16, 96, Container.MPEG, Codec.MP3),
+    audio_48khz_192kbitrate_mono_mp3("audio-48khz-192kbitrate-mono-mp3", 48000, 16, 192, Container.MPEG, Codec.MP3),
+    ogg_16khz_16bit_mono_opus("ogg-16khz-16bit-mono-opus", 16000, 16, 0, Container.OGG, Codec.OPUS),
+    ogg_24khz_16bit_mono_opus("ogg-24khz-16bit-mono-opus", 24000, 16, 0, Container.OGG, Codec.OPUS),
+    ogg_48khz_16bit_mono_opus("ogg-48khz-16bit-mono-opus", 48000, 16, 0, Container.OGG, Codec.OPUS),
+    raw_8khz_8bit_mono_alaw("raw-8khz-8bit-mono-alaw", 8000, 8, 64, Container.RAW, Codec.ALAW),
+    raw_8khz_8bit_mono_mulaw("raw-8khz-8bit-mono-mulaw", 8000, 8, 64, Container.RAW, Codec.MULAW),
+    raw_8khz_16bit_mono_pcm("raw-8khz-16bit-mono-pcm", 8000, 16, 128, Container.RAW, Codec.PCM),
+    raw_16khz_16bit_mono_pcm("raw-16khz-16bit-mono-pcm", 16000, 16, 256, Container.RAW, Codec.PCM),
+    raw_16khz_16bit_mono_truesilk("raw-16khz-16bit-mono-truesilk", 16000, 16, 0, Container.RAW, Codec.SILK),
+    raw_22050hz_16bit_mono_pcm("raw-22050hz-16bit-mono-pcm", 22050, 16, 352, Container.RAW, Codec.PCM),
+    raw_24khz_16bit_mono_pcm("raw-24khz-16bit-mono-pcm", 24000, 16, 384, Container.RAW, Codec.PCM),
+    raw_24khz_16bit_mono_truesilk("raw-24khz-16bit-mono-truesilk", 24000, 16, 0, Container.RAW, Codec.SILK),
+    raw_44100hz_16bit_mono_pcm("raw-44100hz-16bit-mono-pcm", 44100, 16, 705, Container.RAW, Codec.PCM),
+    raw_48khz_16bit_mono_pcm("raw-48khz-16bit-mono-pcm", 48000, 16, 768, Container.RAW, Codec.PCM),
+    webm_16khz_16bit_mono_opus("webm-16khz-16bit-mono-opus", 16000, 16, 0, Container.WEBM, Codec.OPUS),
+    webm_24khz_16bit_24kbps_mono_opus("webm-24khz-16bit-24kbps-mono-opus", 24000, 16, 24, Container.WEBM, Codec.OPUS),
+    webm_24khz_16bit_mono_opus("webm-24khz-16bit-mono-opus", 24000, 16, 0, Container.WEBM, Codec.OPUS),
     ;
     private final String value;
+    /**
+     * 采样率，Hz
+     */
+    private final int sampleRate;
+    /**
+     * 采样位数，压缩格式为解码后的位数
+     */
+    private final int bitsPerSample;
+    /**
+     * 码率，kbps，可变码率时为 0
+     */
+    private final int bitrate;
+    private final Container container;
+    private final Codec codec;
 
-    OutputFormat(String value) {
+    OutputFormat(String value, int sampleRate, int bitsPerSample, int bitrate, Container container, Codec codec) {
         this.value = value;
+        this.sampleRate = sampleRate;
+        this.bitsPerSample = bitsPerSample;
+        this.bitrate = bitrate;
+        this.container = container;
+        this.codec = codec;
     }
 
     public String getValue() {
         return value;
     }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    /**
+     * 声道数，目前全部为单声道
+     */
+    public int getChannels() {
+        return 1;
+    }
+
+    public int getBitrate() {
+        return bitrate;
+    }
+
+    public Container getContainer() {
+        return container;
+    }
+
+    public Codec getCodec() {
+        return codec;
+    }
+
+    /**
+     * 是否可以把收到的音频帧直接拼接、边收边播放或转发；裸 opus、silk 数据包拼接后丢失包边界，不能直接播放
+     *
+     * @return
+     */
+    public boolean isStreamable() {
+        return container != Container.RAW || isWaveCompatible();
+    }
+
+    /**
+     * 是否是无容器的 pcm、A 律、μ 律采样数据，解码开销最低，加上 wav 头部即可播放
+     *
+     * @return
+     */
+    public boolean isWaveCompatible() {
+        return container == Container.RAW && (codec == Codec.PCM || codec == Codec.ALAW || codec == Codec.MULAW);
+    }
+
+    /**
+     * 写出文件时的后缀：pcm、A 律、μ 律写出为带头部的 wav 文件，其他按容器或编码
+     *
+     * @return
+     */
+    public String getFileSuffix() {
+        if (isWaveCompatible()) {
+            return "wav";
+        }
+        return container == Container.RAW ? codec.getSuffix() : container.getSuffix();
+    }
+
+    /**
+     * 音频流（不含 wav 头部）的 MIME 类型
+     *
+     * @return
+     */
+    public String getMimeType() {
+        if (container != Container.RAW) {
+            return container.getMimeType();
+        }
+        return codec.getMimeType();
+    }
+
+    /**
+     * 按名称查找输出格式
+     *
+     * @param name 格式值，如 audio-24khz-48kbitrate-mono-mp3，或枚举名
+     * @return 找不到时返回 null
+     */
+    public static OutputFormat of(String name) {
+        if (name == null) {
+            return null;
+        }
+        String trimmed = name.trim();
+        for (OutputFormat format : values()) {
+            if (format.value.equalsIgnoreCase(trimmed) || format.name().equalsIgnoreCase(trimmed)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 容器格式
+     */
+    public enum Container {
+        /**
+         * mp3 帧直接拼接
+         */
+        MPEG("mp3", "audio/mpeg"),
+        OGG("ogg", "audio/ogg"),
+        WEBM("webm", "audio/webm"),
+        AMR("amr", "audio/amr-wb"),
+        /**
+         * 无容器
+         */
+        RAW("raw", "application/octet-stream"),
+        ;
+        private final String suffix;
+        private final String mimeType;
+
+        Container(String suffix, String mimeType) {
+            this.suffix = suffix;
+            this.mimeType = mimeType;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+    }
+
+    /**
+     * 音频编码
+     */
+    public enum Codec {
+        MP3("mp3", "audio/mpeg"),
+        OPUS("opus", "application/octet-stream"),
+        AMR_WB("amr", "audio/amr-wb"),
+        /**
+         * 16 位有符号小端 pcm
+         */
+        PCM("pcm", "application/octet-stream"),
+        ALAW("alaw", "audio/PCMA"),
+        MULAW("mulaw", "audio/PCMU"),
+        SILK("silk", "application/octet-stream"),
+        ;
+        private final String suffix;
+        private final String mimeType;
+
+        Codec(String suffix, String mimeType) {
+            this.suffix = suffix;
+            this.mimeType = mimeType;
+        }
+
+        public String getSuffix() {
+            return suffix;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+    }
 }
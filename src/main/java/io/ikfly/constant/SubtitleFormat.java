@@ -0,0 +1,80 @@
+package io.ikfly.constant;
+
+/**
+ * 字幕文件格式
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public enum SubtitleFormat {
+    /**
+     * SubRip，时间格式 00:00:01,000
+     */
+    SRT("srt", "", ','),
+    /**
+     * WebVTT，时间格式 00:00:01.000
+     */
+    VTT("vtt", "WEBVTT\n\n", '.');
+
+    private final String suffix;
+    private final String header;
+    private final char millisSeparator;
+
+    SubtitleFormat(String suffix, String header, char millisSeparator) {
+        this.suffix = suffix;
+        this.header = header;
+        this.millisSeparator = millisSeparator;
+    }
+
+    /**
+     * @return 文件后缀，不含点
+     */
+    public String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * @return 文件头
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * 一条字幕
+     *
+     * @param number      序号，从 1 开始
+     * @param startMillis 开始时间
+     * @param endMillis   结束时间
+     * @param text        字幕文本
+     * @return
+     */
+    public String cue(int number, long startMillis, long endMillis, String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 48);
+        if (this == SRT) {
+            sb.append(number).append('\n');
+        }
+        appendTime(sb, startMillis);
+        sb.append(" --> ");
+        appendTime(sb, endMillis);
+        return sb.append('\n').append(text).append("\n\n").toString();
+    }
+
+    private void appendTime(StringBuilder sb, long millis) {
+        long hours = millis / 3_600_000;
+        long minutes = millis / 60_000 % 60;
+        long seconds = millis / 1000 % 60;
+        pad(sb, hours, 2).append(':');
+        pad(sb, minutes, 2).append(':');
+        pad(sb, seconds, 2).append(millisSeparator);
+        pad(sb, millis % 1000, 3);
+    }
+
+    private static StringBuilder pad(StringBuilder sb, long value, int width) {
+        String s = Long.toString(value);
+        for (int i = s.length(); i < width; i++) {
+            sb.append('0');
+        }
+        return sb.append(s);
+    }
+}
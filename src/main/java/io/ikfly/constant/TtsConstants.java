@@ -26,6 +26,16 @@ public interface TtsConstants {
      */
     String UA = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/111.0.0.0 Safari/537.36 Edg/111.0.1661.44";
 
+    /**
+     * 请求 id 头部，服务端返回的每条消息都会带上对应请求的 id
+     */
+    String REQUEST_ID_HEADER = "X-RequestId";
+    /**
+     * 消息类型头部
+     */
+    String PATH_HEADER = "Path";
+
+
     /**
      * 音频流开始传输标记
      */
@@ -34,6 +44,10 @@ public interface TtsConstants {
      * 音频流结束传输标记
      */
     String TURN_END = "turn.end";
+    /**
+     * 词边界等元数据
+     */
+    String AUDIO_METADATA = "audio.metadata";
 
     /**
      * 音频数据流标志头
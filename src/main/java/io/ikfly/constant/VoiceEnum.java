@@ -170,4 +170,23 @@ public enum VoiceEnum {
     public String getLocale() {
         return locale;
     }
+
+    /**
+     * 按名称查找语音
+     *
+     * @param name 语音名称，如 zh-CN-XiaoxiaoNeural，或枚举名 zh_CN_XiaoxiaoNeural
+     * @return 找不到时返回 null
+     */
+    public static VoiceEnum of(String name) {
+        if (name == null) {
+            return null;
+        }
+        String trimmed = name.trim();
+        for (VoiceEnum voice : values()) {
+            if (voice.shortName.equalsIgnoreCase(trimmed) || voice.name().equalsIgnoreCase(trimmed)) {
+                return voice;
+            }
+        }
+        return null;
+    }
 }
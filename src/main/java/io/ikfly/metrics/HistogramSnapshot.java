@@ -0,0 +1,58 @@
+package io.ikfly.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * 直方图的统计快照，单位与记录时一致
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class HistogramSnapshot {
+
+    private final long count;
+    private final long mean;
+    private final long max;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+
+    @ConstructorProperties({"count", "mean", "max", "p50", "p90", "p99"})
+    public HistogramSnapshot(long count, long mean, long max, long p50, long p90, long p99) {
+        this.count = count;
+        this.mean = mean;
+        this.max = max;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMean() {
+        return mean;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", mean=" + mean + ", p50=" + p50 + ", p90=" + p90 + ", p99=" + p99 + ", max=" + max;
+    }
+}
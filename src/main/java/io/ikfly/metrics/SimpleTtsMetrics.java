@@ -0,0 +1,187 @@
+package io.ikfly.metrics;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.constant.VoiceEnum;
+import io.ikfly.exceptions.TtsException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内存中的指标实现：耗时记录为微秒直方图，次数记录为计数，
+ * 请求相关的指标按输出格式和语音分别统计，可以注册为 JMX MBean
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class SimpleTtsMetrics implements TtsMetrics, SimpleTtsMetricsMXBean {
+
+    public static final String CONNECT_MICROS = "connectMicros";
+    public static final String QUEUE_MICROS = "queueMicros";
+    public static final String FIRST_AUDIO_MICROS = "firstAudioMicros";
+    public static final String TURN_END_MICROS = "turnEndMicros";
+    public static final String AUDIO_BYTES = "audioBytes";
+
+    public static final String CONNECTIONS = "connections";
+    public static final String CONNECTION_FAILURES = "connectionFailures";
+    public static final String REQUESTS = "requests";
+    public static final String RETRIES = "retries";
+    public static final String FAILURES = "failures";
+    public static final String CANCELLATIONS = "cancellations";
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private volatile ObjectName objectName;
+
+    @Override
+    public void connected(long nanos) {
+        histogram(CONNECT_MICROS).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        counter(CONNECTIONS).increment();
+    }
+
+    @Override
+    public void connectionFailed(Throwable cause) {
+        counter(CONNECTION_FAILURES).increment();
+    }
+
+    @Override
+    public void queued(OutputFormat format, VoiceEnum voice, long nanos) {
+        histogram(key(QUEUE_MICROS, format, voice)).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    @Override
+    public void firstAudio(OutputFormat format, VoiceEnum voice, long nanos) {
+        histogram(key(FIRST_AUDIO_MICROS, format, voice)).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    @Override
+    public void turnEnd(OutputFormat format, VoiceEnum voice, long nanos, long bytes) {
+        histogram(key(TURN_END_MICROS, format, voice)).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        histogram(key(AUDIO_BYTES, format, voice)).record(bytes);
+        counter(key(REQUESTS, format, voice)).increment();
+    }
+
+    @Override
+    public void retried(OutputFormat format, VoiceEnum voice) {
+        counter(key(RETRIES, format, voice)).increment();
+    }
+
+    @Override
+    public void failed(OutputFormat format, VoiceEnum voice, Throwable cause) {
+        counter(key(FAILURES, format, voice)).increment();
+    }
+
+    @Override
+    public void cancelled(OutputFormat format, VoiceEnum voice) {
+        counter(key(CANCELLATIONS, format, voice)).increment();
+    }
+
+    /**
+     * 不区分输出格式和语音的指标，如 {@link #CONNECT_MICROS}
+     *
+     * @param name
+     * @return 没有记录时返回 null
+     */
+    public HistogramSnapshot getHistogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram == null ? null : histogram.snapshot();
+    }
+
+    /**
+     * @param name   指标名，如 {@link #FIRST_AUDIO_MICROS}
+     * @param format
+     * @param voice
+     * @return 没有记录时返回 null
+     */
+    public HistogramSnapshot getHistogram(String name, OutputFormat format, VoiceEnum voice) {
+        return getHistogram(key(name, format, voice));
+    }
+
+    public long getCounter(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public long getCounter(String name, OutputFormat format, VoiceEnum voice) {
+        return getCounter(key(name, format, voice));
+    }
+
+    @Override
+    public Map<String, HistogramSnapshot> getHistograms() {
+        Map<String, HistogramSnapshot> snapshots = new TreeMap<>();
+        histograms.forEach((name, histogram) -> snapshots.put(name, histogram.snapshot()));
+        return snapshots;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    @Override
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * 注册到平台 MBeanServer，名称为 io.ikfly:type=TtsMetrics,name=name
+     *
+     * @param name 区分多个 TTSService 的名称
+     * @return
+     */
+    public synchronized SimpleTtsMetrics register(String name) {
+        if (Objects.nonNull(objectName)) {
+            throw TtsException.of("指标已注册：" + objectName);
+        }
+        try {
+            ObjectName objectName = ObjectName.getInstance("io.ikfly:type=TtsMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            this.objectName = objectName;
+        } catch (JMException e) {
+            throw TtsException.of("指标注册失败，" + e.getMessage());
+        }
+        return this;
+    }
+
+    /**
+     * 从平台 MBeanServer 注销
+     */
+    public synchronized void unregister() {
+        ObjectName current = objectName;
+        if (Objects.isNull(current)) {
+            return;
+        }
+        objectName = null;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(current);
+        } catch (JMException e) {
+            throw TtsException.of("指标注销失败，" + e.getMessage());
+        }
+    }
+
+    private LatencyHistogram histogram(String key) {
+        LatencyHistogram histogram = histograms.get(key);
+        return histogram != null ? histogram : histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+
+    private LongAdder counter(String key) {
+        LongAdder counter = counters.get(key);
+        return counter != null ? counter : counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private static String key(String name, OutputFormat format, VoiceEnum voice) {
+        return name + "[" + (format == null ? "-" : format.getValue()) + "," + (voice == null ? "-" : voice.getShortName()) + "]";
+    }
+}
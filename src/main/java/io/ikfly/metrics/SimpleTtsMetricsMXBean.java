@@ -0,0 +1,27 @@
+package io.ikfly.metrics;
+
+import java.util.Map;
+
+/**
+ * {@link SimpleTtsMetrics} 的 JMX 接口，可在 JConsole、VisualVM 中查看
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public interface SimpleTtsMetricsMXBean {
+
+    /**
+     * 全部直方图，键为指标名，按输出格式和语音区分的指标带有 [格式,语音] 后缀
+     */
+    Map<String, HistogramSnapshot> getHistograms();
+
+    /**
+     * 全部计数，键的规则同 {@link #getHistograms()}
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * 清空全部指标
+     */
+    void reset();
+}
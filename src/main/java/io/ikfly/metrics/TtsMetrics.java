@@ -0,0 +1,82 @@
+package io.ikfly.metrics;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.constant.VoiceEnum;
+
+/**
+ * 合成过程的指标采集接口，所有方法默认不做任何事，按需覆盖。
+ * 时间均为纳秒；方法在 ws 读线程和调用方线程上回调，实现需要线程安全且不能阻塞。
+ * 可以桥接到 Micrometer 的 Timer、Counter，或直接使用 {@link SimpleTtsMetrics} 通过 JMX 查看
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public interface TtsMetrics {
+
+    /**
+     * 不采集任何指标
+     */
+    TtsMetrics NOOP = new TtsMetrics() {
+    };
+
+    /**
+     * ws 连接建立完成
+     *
+     * @param nanos 从发起连接到握手完成的时间
+     */
+    default void connected(long nanos) {
+    }
+
+    /**
+     * ws 连接建立失败或异常断开，之后会退避重连
+     *
+     * @param cause
+     */
+    default void connectionFailed(Throwable cause) {
+    }
+
+    /**
+     * 请求发送，重发的请求每次发送都会回调
+     *
+     * @param nanos 从提交到发送的排队时间
+     */
+    default void queued(OutputFormat format, VoiceEnum voice, long nanos) {
+    }
+
+    /**
+     * 收到首个音频帧
+     *
+     * @param nanos 从发送到收到首个音频帧的时间
+     */
+    default void firstAudio(OutputFormat format, VoiceEnum voice, long nanos) {
+    }
+
+    /**
+     * 收到 turn.end，音频接收完毕
+     *
+     * @param nanos 从发送到收到 turn.end 的时间
+     * @param bytes 收到的音频字节数
+     */
+    default void turnEnd(OutputFormat format, VoiceEnum voice, long nanos, long bytes) {
+    }
+
+    /**
+     * 连接断开后请求放回队列重发
+     */
+    default void retried(OutputFormat format, VoiceEnum voice) {
+    }
+
+    /**
+     * 请求失败，包括超过重发次数和写文件失败，不包括取消
+     *
+     * @param cause
+     */
+    default void failed(OutputFormat format, VoiceEnum voice, Throwable cause) {
+    }
+
+    /**
+     * 请求被取消，如同步合成超时、长文本合成中其他段失败
+     */
+    default void cancelled(OutputFormat format, VoiceEnum voice) {
+    }
+}
@@ -0,0 +1,193 @@
+package io.ikfly.model;
+
+import io.ikfly.exceptions.TtsException;
+import okio.Buffer;
+import okio.ByteString;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * ws 二进制消息解码：2 字节头部长度（大端） + 头部文本 + 音频数据。
+ * 头部只在原始字节上扫描一次，音频数据不做中间拷贝；实例可复用，非线程安全
+ *
+ * <pre>
+ *     [len hi][len lo]X-RequestId:...\r\nContent-Type:audio/mpeg\r\nX-StreamId:...\r\nPath:audio\r\n[音频数据]
+ * </pre>
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public final class AudioFrame {
+
+    private static final byte[] REQUEST_ID = "X-RequestId".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PATH = "Path".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_TYPE = "Content-Type".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] AUDIO = "audio".getBytes(StandardCharsets.US_ASCII);
+
+    private ByteString frame;
+    private int payloadOffset;
+    private String requestId;
+    private boolean audioPath;
+    private boolean audioContentType;
+
+    /**
+     * 解码一条二进制消息，覆盖上一次的解码结果
+     *
+     * @param frame ws 二进制消息
+     * @return this
+     */
+    public AudioFrame decode(ByteString frame) {
+        int size = frame.size();
+        if (size < 2) {
+            throw TtsException.of("音频帧长度不足：" + size);
+        }
+        int headerEnd = 2 + (((frame.getByte(0) & 0xff) << 8) | (frame.getByte(1) & 0xff));
+        if (headerEnd > size) {
+            throw TtsException.of("音频帧头部长度错误：" + (headerEnd - 2) + "/" + size);
+        }
+        this.frame = frame;
+        this.payloadOffset = headerEnd;
+        this.audioPath = false;
+        this.audioContentType = false;
+        boolean hasRequestId = false;
+
+        int lineStart = 2;
+        while (lineStart < headerEnd) {
+            int lineEnd = lineEnd(frame, lineStart, headerEnd);
+            int colon = indexOf(frame, (byte) ':', lineStart, lineEnd);
+            if (colon > lineStart) {
+                int valueStart = colon + 1;
+                while (valueStart < lineEnd && frame.getByte(valueStart) == ' ') {
+                    valueStart++;
+                }
+                if (nameEquals(frame, lineStart, colon, REQUEST_ID)) {
+                    readRequestId(frame, valueStart, lineEnd);
+                    hasRequestId = true;
+                } else if (nameEquals(frame, lineStart, colon, PATH)) {
+                    audioPath = lineEnd - valueStart == AUDIO.length && startsWith(frame, valueStart, lineEnd, AUDIO);
+                } else if (nameEquals(frame, lineStart, colon, CONTENT_TYPE)) {
+                    audioContentType = startsWith(frame, valueStart, lineEnd, AUDIO);
+                }
+            }
+            lineStart = lineEnd + 2;
+        }
+        if (!hasRequestId) {
+            requestId = null;
+        }
+        return this;
+    }
+
+    /**
+     * @return X-RequestId，没有该头部时返回 null
+     */
+    public String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return 是否为包含音频数据的帧（Path:audio 且 Content-Type:audio/*）
+     */
+    public boolean hasAudio() {
+        return audioPath && audioContentType && getPayloadLength() > 0;
+    }
+
+    public int getPayloadLength() {
+        return frame.size() - payloadOffset;
+    }
+
+    /**
+     * 复制出音频数据，只分配音频数据本身大小的数组。
+     * okhttp 收到的大消息是分段的 ByteString，无法直接得到连续内存的视图
+     *
+     * @return
+     */
+    public ByteBuffer payload() {
+        byte[] payload = new byte[getPayloadLength()];
+        frame.copyInto(payloadOffset, payload, 0, payload.length);
+        return ByteBuffer.wrap(payload);
+    }
+
+    /**
+     * 把音频数据的一段直接复制到 target，不经过中间数组
+     *
+     * @param offset       音频数据内的偏移
+     * @param target
+     * @param targetOffset
+     * @param byteCount
+     */
+    public void copyPayloadInto(int offset, byte[] target, int targetOffset, int byteCount) {
+        frame.copyInto(payloadOffset + offset, target, targetOffset, byteCount);
+    }
+
+    /**
+     * 把音频数据直接写入 buffer，分段的 ByteString 会共享分段而不拷贝
+     *
+     * @param sink
+     */
+    public void writePayloadTo(Buffer sink) {
+        sink.write(frame, payloadOffset, getPayloadLength());
+    }
+
+    /**
+     * 与上一帧的 X-RequestId 相同时复用已有字符串，避免每帧分配
+     */
+    private void readRequestId(ByteString frame, int start, int end) {
+        String previous = requestId;
+        if (previous != null && previous.length() == end - start) {
+            boolean same = true;
+            for (int i = start; i < end; i++) {
+                if (previous.charAt(i - start) != (char) (frame.getByte(i) & 0xff)) {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) {
+                return;
+            }
+        }
+        requestId = frame.substring(start, end).string(StandardCharsets.US_ASCII);
+    }
+
+    private static int lineEnd(ByteString frame, int from, int end) {
+        for (int i = from; i < end - 1; i++) {
+            if (frame.getByte(i) == '\r' && frame.getByte(i + 1) == '\n') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int indexOf(ByteString frame, byte b, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (frame.getByte(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean nameEquals(ByteString frame, int start, int end, byte[] name) {
+        return end - start == name.length && startsWith(frame, start, end, name);
+    }
+
+    /**
+     * 忽略大小写（仅 ASCII 字母）比较前缀，其他字符需完全相同，如 '\r' 不能匹配 '-'
+     */
+    private static boolean startsWith(ByteString frame, int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            byte actual = frame.getByte(start + i);
+            byte expected = prefix[i];
+            if (actual != expected) {
+                int lower = expected | 0x20;
+                if (lower < 'a' || lower > 'z' || (actual | 0x20) != lower) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
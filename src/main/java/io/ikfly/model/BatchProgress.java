@@ -0,0 +1,99 @@
+package io.ikfly.model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量合成进度快照
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class BatchProgress {
+
+    /**
+     * 总数，事先未知时为 -1
+     */
+    private final long total;
+    /**
+     * 已提交、成功、失败（重试后仍失败）的条数和重试次数
+     */
+    private final long submitted;
+    private final long succeeded;
+    private final long failed;
+    private final long retries;
+    /**
+     * 开始以来的耗时
+     */
+    private final long elapsedNanos;
+
+    public BatchProgress(long total, long submitted, long succeeded, long failed, long retries, long elapsedNanos) {
+        this.total = total;
+        this.submitted = submitted;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.retries = retries;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    /**
+     * 已结束（成功或失败）的条数
+     */
+    public long getCompleted() {
+        return succeeded + failed;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * 每秒完成的条数
+     */
+    public double getThroughput() {
+        return elapsedNanos <= 0 ? 0 : getCompleted() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * 按当前吞吐量估算的剩余时间，总数未知或尚无完成时为 -1
+     */
+    public long getEtaMillis() {
+        long completed = getCompleted();
+        if (total < 0 || completed == 0) {
+            return -1;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos / completed * Math.max(total - completed, 0));
+    }
+
+    @Override
+    public String toString() {
+        return "BatchProgress{" +
+                "completed=" + getCompleted() + (total < 0 ? "" : "/" + total) +
+                ", succeeded=" + succeeded +
+                ", failed=" + failed +
+                ", retries=" + retries +
+                ", throughput=" + String.format("%.2f/s", getThroughput()) +
+                ", elapsedMillis=" + getElapsedMillis() +
+                ", etaMillis=" + getEtaMillis() +
+                '}';
+    }
+}
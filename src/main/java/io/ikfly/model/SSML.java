@@ -70,10 +70,38 @@ public class SSML implements Serializable {
         return new SSML.SSMLBuilder();
     }
 
+    /**
+     * 以当前参数为模板创建 builder
+     *
+     * @return
+     */
+    public SSMLBuilder toBuilder() {
+        return new SSML.SSMLBuilder()
+                .synthesisText(synthesisText)
+                .voice(voice)
+                .rate(rate)
+                .volume(volume)
+                .outputFormat(outputFormat)
+                .outputFileName(outputFileName)
+                .usePlayer(usePlayer);
+    }
+
     public String getSynthesisText() {
         return synthesisText;
     }
 
+    public VoiceEnum getVoice() {
+        return voice;
+    }
+
+    public String getRate() {
+        return rate;
+    }
+
+    public String getVolume() {
+        return volume;
+    }
+
     public OutputFormat getOutputFormat() {
         return outputFormat;
     }
@@ -98,8 +126,18 @@ public class SSML implements Serializable {
          */
     @Override
     public String toString() {
+        return render(Tools.getRandomId());
+    }
+
+    /**
+     * 生成指定 X-RequestId 的合成请求消息
+     *
+     * @param requestId
+     * @return
+     */
+    public String render(String requestId) {
         return String.format(SSML_PATTERN,
-                Tools.getRandomId(),
+                requestId,
                 Tools.date(),
                 Optional.ofNullable(voice).orElse(VoiceEnum.zh_CN_XiaoxiaoNeural).getLocale(),
                 Optional.ofNullable(voice).orElse(VoiceEnum.zh_CN_XiaoxiaoNeural).getShortName(),
@@ -0,0 +1,123 @@
+package io.ikfly.model;
+
+import io.ikfly.constant.OutputFormat;
+import okio.ByteString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次语音合成的结果
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class SynthesisResult {
+
+    /**
+     * 合成的文本
+     */
+    private final String synthesisText;
+    /**
+     * 音频输出格式
+     */
+    private final OutputFormat outputFormat;
+    /**
+     * 音频数据
+     */
+    private final ByteString audio;
+    /**
+     * 写出的音频文件绝对路径
+     */
+    private final String filePath;
+    /**
+     * 词边界时间索引，命中缓存时为空
+     */
+    private final WordBoundaryIndex wordBoundaries;
+    /**
+     * 提交、发送、收到首个音频帧、合成结束的时间点，System.nanoTime()
+     */
+    private final long submitNanos;
+    private final long sendNanos;
+    private final long firstAudioNanos;
+    private final long endNanos;
+
+    public SynthesisResult(String synthesisText, OutputFormat outputFormat, ByteString audio, String filePath,
+                           long submitNanos, long sendNanos, long firstAudioNanos, long endNanos) {
+        this(synthesisText, outputFormat, audio, filePath, null, submitNanos, sendNanos, firstAudioNanos, endNanos);
+    }
+
+    public SynthesisResult(String synthesisText, OutputFormat outputFormat, ByteString audio, String filePath,
+                           WordBoundaryIndex wordBoundaries,
+                           long submitNanos, long sendNanos, long firstAudioNanos, long endNanos) {
+        this.synthesisText = synthesisText;
+        this.outputFormat = outputFormat;
+        this.audio = audio;
+        this.filePath = filePath;
+        this.wordBoundaries = wordBoundaries;
+        this.submitNanos = submitNanos;
+        this.sendNanos = sendNanos;
+        this.firstAudioNanos = firstAudioNanos;
+        this.endNanos = endNanos;
+    }
+
+    public String getSynthesisText() {
+        return synthesisText;
+    }
+
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    public ByteString getAudio() {
+        return audio;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    public WordBoundaryIndex getWordBoundaries() {
+        return wordBoundaries;
+    }
+
+    /**
+     * 提交后等待空闲连接的耗时
+     */
+    public long getQueueMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(sendNanos - submitNanos);
+    }
+
+    /**
+     * 发送请求到收到首个音频帧的耗时，没有收到音频时为 -1
+     */
+    public long getFirstAudioMillis() {
+        return firstAudioNanos == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(firstAudioNanos - sendNanos);
+    }
+
+    /**
+     * 发送请求到合成结束的耗时
+     */
+    public long getSynthesisMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(endNanos - sendNanos);
+    }
+
+    /**
+     * 提交到合成结束的总耗时
+     */
+    public long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(endNanos - submitNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "SynthesisResult{" +
+                "filePath='" + filePath + '\'' +
+                ", outputFormat=" + outputFormat +
+                ", audioBytes=" + (audio == null ? 0 : audio.size()) +
+                ", words=" + (wordBoundaries == null ? 0 : wordBoundaries.size()) +
+                ", queueMillis=" + getQueueMillis() +
+                ", firstAudioMillis=" + getFirstAudioMillis() +
+                ", totalMillis=" + getTotalMillis() +
+                '}';
+    }
+}
@@ -0,0 +1,202 @@
+package io.ikfly.model;
+
+import io.ikfly.util.Tools;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 词边界时间索引，由 audio.metadata 中的 WordBoundary 事件构建，数据全部存放在基本类型数组中。
+ * 时间单位为 100 纳秒（服务端原始单位），文本位置是合成文本中的字符偏移
+ *
+ * <pre>
+ *     {"Metadata":[{"Type":"WordBoundary","Data":{"Offset":1000000,"Duration":2875000,"text":{"Text":"你好","Length":2,"BoundaryType":"WordBoundary"}}}]}
+ * </pre>
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class WordBoundaryIndex {
+
+    private static final String TYPE = "\"Type\"";
+    private static final Pattern WORD_BOUNDARY = Pattern.compile("^\"Type\"\\s*:\\s*\"WordBoundary\"");
+    private static final Pattern OFFSET = Pattern.compile("\"Offset\"\\s*:\\s*(\\d+)");
+    private static final Pattern DURATION = Pattern.compile("\"Duration\"\\s*:\\s*(\\d+)");
+    private static final Pattern TEXT = Pattern.compile("\"Text\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    /**
+     * 合成文本
+     */
+    private final String text;
+
+    private long[] offsets = new long[16];
+    private long[] durations = new long[16];
+    private int[] textOffsets = new int[16];
+    private int[] textLengths = new int[16];
+    /**
+     * 在合成文本中找不到的词（服务端可能规范化了文本），只在出现时分配
+     */
+    private String[] unmatched;
+    private int size;
+    /**
+     * 在合成文本中查找下一个词的起点
+     */
+    private int cursor;
+
+    public WordBoundaryIndex(String text) {
+        this.text = text == null ? "" : text;
+    }
+
+    /**
+     * 解析一条 audio.metadata 消息的 JSON 正文，追加其中的 WordBoundary 事件
+     *
+     * @param json
+     * @return 追加的事件数
+     */
+    public synchronized int addMetadata(String json) {
+        int added = 0;
+        int start = json.indexOf(TYPE);
+        while (start >= 0) {
+            int end = json.indexOf(TYPE, start + TYPE.length());
+            String element = json.substring(start, end < 0 ? json.length() : end);
+            if (WORD_BOUNDARY.matcher(element).find()) {
+                Matcher offset = OFFSET.matcher(element);
+                Matcher duration = DURATION.matcher(element);
+                Matcher word = TEXT.matcher(element);
+                if (offset.find() && duration.find() && word.find()) {
+                    add(Long.parseLong(offset.group(1)), Long.parseLong(duration.group(1)), Tools.unescapeJson(word.group(1)));
+                    added++;
+                }
+            }
+            start = end;
+        }
+        return added;
+    }
+
+    /**
+     * 追加一个词边界
+     *
+     * @param offsetTicks   音频中的开始时间，100 纳秒
+     * @param durationTicks 持续时间，100 纳秒
+     * @param word          词文本
+     */
+    public synchronized void add(long offsetTicks, long durationTicks, String word) {
+        if (size == offsets.length) {
+            int capacity = size * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            textOffsets = Arrays.copyOf(textOffsets, capacity);
+            textLengths = Arrays.copyOf(textLengths, capacity);
+            if (unmatched != null) {
+                unmatched = Arrays.copyOf(unmatched, capacity);
+            }
+        }
+        offsets[size] = offsetTicks;
+        durations[size] = durationTicks;
+        int position = text.indexOf(word, cursor);
+        if (position >= 0 && !word.isEmpty()) {
+            textOffsets[size] = position;
+            textLengths[size] = word.length();
+            cursor = position + word.length();
+        } else {
+            textOffsets[size] = -1;
+            textLengths[size] = word.length();
+            if (unmatched == null) {
+                unmatched = new String[offsets.length];
+            }
+            unmatched[size] = word;
+        }
+        size++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public synchronized long getOffsetTicks(int i) {
+        check(i);
+        return offsets[i];
+    }
+
+    public synchronized long getDurationTicks(int i) {
+        check(i);
+        return durations[i];
+    }
+
+    public long getOffsetMillis(int i) {
+        return ticksToMillis(getOffsetTicks(i));
+    }
+
+    public long getDurationMillis(int i) {
+        return ticksToMillis(getDurationTicks(i));
+    }
+
+    /**
+     * @return 词在合成文本中的起始位置，找不到时为 -1
+     */
+    public synchronized int getTextOffset(int i) {
+        check(i);
+        return textOffsets[i];
+    }
+
+    public synchronized int getTextLength(int i) {
+        check(i);
+        return textLengths[i];
+    }
+
+    public synchronized String getWord(int i) {
+        check(i);
+        if (textOffsets[i] < 0) {
+            return unmatched[i];
+        }
+        return text.substring(textOffsets[i], textOffsets[i] + textLengths[i]);
+    }
+
+    /**
+     * 查找指定时间正在朗读的词
+     *
+     * @param offsetTicks 音频中的时间，100 纳秒
+     * @return 开始时间不晚于该时间的最后一个词，在第一个词之前时返回 -1
+     */
+    public synchronized int indexAt(long offsetTicks) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (offsets[mid] <= offsetTicks) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    public static long ticksToMillis(long ticks) {
+        return TimeUnit.NANOSECONDS.toMillis(ticks * 100);
+    }
+
+    private void check(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("index: " + i + ", size: " + size);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("WordBoundaryIndex{");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(getWord(i)).append('@').append(getOffsetMillis(i)).append("ms+").append(getDurationMillis(i));
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -3,12 +3,12 @@ package io.ikfly.player;
 import io.ikfly.exceptions.TtsException;
 import javazoom.spi.mpeg.sampled.file.MpegAudioFileReader;
 
-import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 /**
  * @author zh-hq
@@ -16,22 +16,49 @@ import java.io.IOException;
  */
 public class Mp3Player extends PcmPlayer {
 
+    /**
+     * 流式播放时的读缓冲，mp3spi 解析帧头时需要 mark/reset
+     */
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
     @Override
-    public void play(String path) throws IOException, UnsupportedAudioFileException {
+    public AudioInputStream decode(String path) throws IOException, UnsupportedAudioFileException {
         File file = new File(path);
         if (!file.exists() || !path.toLowerCase().endsWith(".mp3")) {
             throw TtsException.of("文件不存在");
         }
-        AudioInputStream stream = null;
         //使用 mp3spi 解码 mp3 音频文件
         MpegAudioFileReader mp = new MpegAudioFileReader();
-        stream = mp.getAudioInputStream(file);
+        return toPcm(mp.getAudioInputStream(file));
+    }
+
+    /**
+     * 边接收边播放 mp3 音频流，如 {@link io.ikfly.service.TTSService#synthesizeStream} 返回的输入流，
+     * 读取到第一帧即开始解码播放，阻塞直到流结束并播放完毕
+     *
+     * @param in mp3 音频流，播放结束后关闭
+     * @throws IOException
+     * @throws UnsupportedAudioFileException
+     */
+    public void play(InputStream in) throws IOException, UnsupportedAudioFileException {
+        playPcm(decode(in));
+    }
 
-        AudioFormat baseFormat = stream.getFormat();
-        //设定输出格式为pcm格式的音频文件
-        AudioFormat format = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, baseFormat.getSampleRate(), 16, baseFormat.getChannels(), baseFormat.getChannels() * 2, baseFormat.getSampleRate(), false);
-        // 输出到音频
-        stream = AudioSystem.getAudioInputStream(format, stream);
-        playPcm(stream);
+    /**
+     * 解码 mp3 音频流，读取到第一帧即返回，之后边接收边解码
+     *
+     * @param in mp3 音频流，关闭返回的 pcm 音频流时一并关闭
+     * @return pcm 音频流
+     * @throws IOException
+     * @throws UnsupportedAudioFileException
+     */
+    public AudioInputStream decode(InputStream in) throws IOException, UnsupportedAudioFileException {
+        MpegAudioFileReader mp = new MpegAudioFileReader();
+        try {
+            return toPcm(mp.getAudioInputStream(new BufferedInputStream(in, STREAM_BUFFER_SIZE)));
+        } catch (IOException | UnsupportedAudioFileException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
     }
 }
@@ -2,24 +2,40 @@ package io.ikfly.player;
 
 import io.ikfly.exceptions.TtsException;
 
+import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.IOException;
+import java.util.function.Supplier;
 
 /**
  * @author zh-hq
  * @date 2023/3/30
  */
 public interface MyPlayer {
+    /**
+     * 按文件后缀选择播放器
+     *
+     * @param path
+     * @return
+     */
     static MyPlayer getInstance(String path) {
-        String suffix = path.substring(path.lastIndexOf("."));
-        switch (suffix) {
-            case ".mp3":
-                return new Mp3Player();
-            case ".pcm":
-                return new PcmPlayer();
-            default:
-                throw TtsException.of("不支持的音频文件：" + suffix);
+        int dot = path.lastIndexOf('.');
+        String suffix = dot < 0 ? "" : path.substring(dot + 1);
+        Supplier<? extends MyPlayer> factory = PlayerRegistry.get(suffix);
+        if (factory == null) {
+            throw TtsException.of("不支持的音频文件：" + suffix);
         }
+        return factory.get();
+    }
+
+    /**
+     * 注册播放器（解码器），如为 ogg、webm 注册基于第三方解码库的实现，已有的后缀会被替换
+     *
+     * @param suffix  文件后缀，如 ogg
+     * @param factory 每次播放创建一个播放器
+     */
+    static void register(String suffix, Supplier<? extends MyPlayer> factory) {
+        PlayerRegistry.register(suffix, factory);
     }
 
     /**
@@ -30,4 +46,14 @@ public interface MyPlayer {
      * @throws UnsupportedAudioFileException
      */
     void play(String path) throws IOException, UnsupportedAudioFileException;
+
+    /**
+     * 打开音频文件并解码为 pcm 音频流，供 {@link PlaybackQueue} 等自行管理输出设备的场景使用
+     *
+     * @param path
+     * @return pcm 音频流，由调用方关闭
+     * @throws IOException
+     * @throws UnsupportedAudioFileException
+     */
+    AudioInputStream decode(String path) throws IOException, UnsupportedAudioFileException;
 }
@@ -17,12 +17,16 @@ public class PcmPlayer implements MyPlayer {
 
     @Override
     public void play(String path) throws IOException, UnsupportedAudioFileException {
+        playPcm(decode(path));
+    }
+
+    @Override
+    public AudioInputStream decode(String path) throws IOException, UnsupportedAudioFileException {
         File file = new File(path);
         if (!file.exists()) {
             throw TtsException.of("文件不存在");
         }
-        AudioInputStream stream = AudioSystem.getAudioInputStream(file);
-        playPcm(stream);
+        return toPcm(AudioSystem.getAudioInputStream(file));
     }
 
     protected void playPcm(AudioInputStream stream) {
@@ -34,7 +38,8 @@ public class PcmPlayer implements MyPlayer {
             line = (SourceDataLine) AudioSystem.getLine(dinfo);
             line.open(target);
             line.start();
-            byte[] buffer = new byte[1024];
+            // 每次写入半个声卡缓冲，按帧对齐
+            byte[] buffer = new byte[frameAligned(line.getBufferSize() / 2, target)];
             while ((len = stream.read(buffer)) > 0) {
                 line.write(buffer, 0, len);
             }
@@ -51,4 +56,33 @@ public class PcmPlayer implements MyPlayer {
             }
         }
     }
+
+    /**
+     * 非 pcm 编码的音频流（如 mp3 解码器输出的 MPEG 流）转为 16 位 pcm
+     *
+     * @param stream
+     * @return
+     */
+    static AudioInputStream toPcm(AudioInputStream stream) {
+        AudioFormat baseFormat = stream.getFormat();
+        AudioFormat.Encoding encoding = baseFormat.getEncoding();
+        if (AudioFormat.Encoding.PCM_SIGNED.equals(encoding) || AudioFormat.Encoding.PCM_UNSIGNED.equals(encoding)) {
+            return stream;
+        }
+        //设定输出格式为pcm格式的音频文件
+        AudioFormat format = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, baseFormat.getSampleRate(), 16, baseFormat.getChannels(), baseFormat.getChannels() * 2, baseFormat.getSampleRate(), false);
+        return AudioSystem.getAudioInputStream(format, stream);
+    }
+
+    /**
+     * 按音频帧大小向下对齐，至少一帧
+     *
+     * @param bytes
+     * @param format
+     * @return
+     */
+    static int frameAligned(int bytes, AudioFormat format) {
+        int frameSize = Math.max(1, format.getFrameSize());
+        return Math.max(frameSize, bytes - bytes % frameSize);
+    }
 }
@@ -0,0 +1,420 @@
+package io.ikfly.player;
+
+import io.ikfly.exceptions.TtsException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连续播放队列：按加入顺序依次播放，句与句之间没有停顿。
+ * <ul>
+ *     <li>每种音频格式保持一个打开的 SourceDataLine，切换片段时不重新打开、不排空声卡缓冲</li>
+ *     <li>解码线程在当前片段播放时预先解码下一个片段，预解码量受缓冲池大小限制</li>
+ *     <li>解码和播放之间复用固定数量的缓冲区，播放过程中不再分配内存</li>
+ * </ul>
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class PlaybackQueue implements Closeable {
+
+    public static final Logger log = LoggerFactory.getLogger(PlaybackQueue.class);
+
+    /**
+     * 等待已写入的音频播放完时的检查间隔
+     */
+    private static final long POLL_MILLIS = 20;
+    /**
+     * 队列结束标记
+     */
+    private static final Clip END = new Clip(null);
+    /**
+     * 片段结束标记
+     */
+    private static final Chunk END_CHUNK = new Chunk(0);
+
+    private final BlockingQueue<Clip> pending = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Clip> decoded = new LinkedBlockingQueue<>();
+    /**
+     * 空闲缓冲区，解码线程取用，播放线程写入声卡后归还
+     */
+    private final BlockingQueue<Chunk> buffers;
+    private final int bufferSize;
+    /**
+     * 声卡缓冲时长
+     */
+    private final int lineBufferMillis;
+    /**
+     * 已打开的输出设备，只在播放线程上访问
+     */
+    private final Map<String, LineState> lines = new HashMap<>();
+    private final Thread decoder;
+    private final Thread player;
+    /**
+     * 播放线程正在写入的片段：已从 decoded 取出、尚未进入 LineState.playing，关闭时需单独结束
+     */
+    private volatile Clip writing;
+    /**
+     * 保证 shutdown 之后不会再有片段排在结束标记后面
+     */
+    private final Object lock = new Object();
+    private volatile boolean shutdown;
+    private volatile boolean closed;
+
+    /**
+     * 预解码约 256KB，24kHz 16 位单声道约 5 秒
+     */
+    public PlaybackQueue() {
+        this(8 * 1024, 32, 200);
+    }
+
+    /**
+     * @param bufferSize       单个缓冲区大小
+     * @param buffers          缓冲区数量，bufferSize * buffers 为预解码的上限
+     * @param lineBufferMillis 声卡缓冲时长，越短延迟越低，过短时可能断音
+     */
+    public PlaybackQueue(int bufferSize, int buffers, int lineBufferMillis) {
+        if (bufferSize < 1024 || buffers < 2 || lineBufferMillis < 1) {
+            throw TtsException.of("播放队列参数设置错误");
+        }
+        this.bufferSize = bufferSize;
+        this.lineBufferMillis = lineBufferMillis;
+        this.buffers = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            this.buffers.offer(new Chunk(bufferSize));
+        }
+        decoder = new Thread(this::decodeLoop, "tts-playback-decoder");
+        decoder.setDaemon(true);
+        player = new Thread(this::playLoop, "tts-playback");
+        player.setDaemon(true);
+        decoder.start();
+        player.start();
+    }
+
+    /**
+     * 加入音频文件，按后缀选择解码器
+     *
+     * @param path
+     * @return 播放完时完成
+     */
+    public CompletableFuture<Void> enqueue(String path) {
+        return enqueue(() -> MyPlayer.getInstance(path).decode(path));
+    }
+
+    /**
+     * 加入 mp3 音频流，如 {@link io.ikfly.service.TTSService#synthesizeStream} 返回的输入流，
+     * 排到时收到的音频立即开始播放，之后边接收边播放
+     *
+     * @param in 播放结束后关闭
+     * @return 播放完时完成
+     */
+    public CompletableFuture<Void> enqueueMp3(InputStream in) {
+        return enqueue(() -> new Mp3Player().decode(in));
+    }
+
+    /**
+     * 加入音频流，非 pcm 编码时先转为 pcm
+     *
+     * @param stream 播放结束后关闭
+     * @return 播放完时完成
+     */
+    public CompletableFuture<Void> enqueue(AudioInputStream stream) {
+        return enqueue(() -> PcmPlayer.toPcm(stream));
+    }
+
+    private CompletableFuture<Void> enqueue(Callable<AudioInputStream> source) {
+        Clip clip = new Clip(source);
+        synchronized (lock) {
+            if (shutdown) {
+                throw TtsException.of("播放队列已关闭");
+            }
+            pending.offer(clip);
+        }
+        return clip.future;
+    }
+
+    /**
+     * 不再接收新的片段，已加入的片段播放完后关闭输出设备
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            if (!shutdown) {
+                shutdown = true;
+                pending.offer(END);
+            }
+        }
+    }
+
+    /**
+     * 立即停止播放，未播放完的片段以异常完成
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            shutdown = true;
+        }
+        closed = true;
+        decoder.interrupt();
+        player.interrupt();
+        failAll(pending);
+        failAll(decoded);
+    }
+
+    /**
+     * 解码线程：依次打开片段，解码后的数据按缓冲区交给播放线程；缓冲区用完时等待播放线程归还
+     */
+    private void decodeLoop() {
+        try {
+            while (!closed) {
+                Clip clip = pending.take();
+                decoded.offer(clip);
+                if (clip == END) {
+                    return;
+                }
+                decode(clip);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void decode(Clip clip) throws InterruptedException {
+        try (AudioInputStream stream = clip.source.call()) {
+            AudioFormat format = stream.getFormat();
+            clip.format = format;
+            int length = PcmPlayer.frameAligned(bufferSize, format);
+            while (!closed) {
+                Chunk chunk = buffers.take();
+                int n = stream.read(chunk.data, 0, length);
+                if (n <= 0) {
+                    buffers.offer(chunk);
+                    break;
+                }
+                chunk.length = n;
+                clip.chunks.offer(chunk);
+            }
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("音频解码失败：" + e.getMessage(), e);
+            clip.error = e;
+        } finally {
+            clip.chunks.offer(END_CHUNK);
+        }
+    }
+
+    /**
+     * 播放线程：按顺序把片段写入对应格式的输出设备，片段之间不排空声卡缓冲
+     */
+    private void playLoop() {
+        LineState current = null;
+        try {
+            while (true) {
+                Clip clip = decoded.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (clip == null) {
+                    completePlayed(current);
+                    continue;
+                }
+                if (clip == END) {
+                    break;
+                }
+                writing = clip;
+                Chunk chunk = next(clip, current);
+                if (chunk == END_CHUNK) {
+                    finish(clip, current);
+                    continue;
+                }
+                LineState state;
+                try {
+                    state = line(clip.format);
+                } catch (LineUnavailableException | RuntimeException e) {
+                    log.error("音频输出设备打开失败：" + e.getMessage(), e);
+                    clip.error = e;
+                    // 丢弃该片段剩余的数据
+                    while (chunk != END_CHUNK) {
+                        buffers.offer(chunk);
+                        chunk = clip.chunks.take();
+                    }
+                    finish(clip, null);
+                    continue;
+                }
+                if (current != null && current != state) {
+                    // 切换输出设备前播完上一个设备上的音频，避免两段声音重叠
+                    drain(current);
+                }
+                current = state;
+                while (chunk != END_CHUNK) {
+                    state.line.write(chunk.data, 0, chunk.length);
+                    state.frames += chunk.length / Math.max(1, clip.format.getFrameSize());
+                    buffers.offer(chunk);
+                    completePlayed(state);
+                    chunk = next(clip, state);
+                }
+                finish(clip, state);
+            }
+            if (current != null) {
+                drain(current);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.error("音频播放失败：" + e.getMessage(), e);
+        } finally {
+            synchronized (lock) {
+                shutdown = true;
+            }
+            Clip clip = writing;
+            if (clip != null) {
+                fail(clip);
+            }
+            failAll(pending);
+            failAll(decoded);
+            for (LineState state : lines.values()) {
+                failAll(state.playing);
+                state.line.close();
+            }
+            lines.clear();
+        }
+    }
+
+    /**
+     * 取片段的下一块数据，等待期间完成已播放完的片段
+     */
+    private Chunk next(Clip clip, LineState state) throws InterruptedException {
+        Chunk chunk;
+        while ((chunk = clip.chunks.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            completePlayed(state);
+        }
+        return chunk;
+    }
+
+    /**
+     * 片段的数据已全部写入：解码失败的以异常完成，否则等播放到片段末尾时完成
+     */
+    private void finish(Clip clip, LineState state) {
+        writing = null;
+        if (clip.error != null) {
+            clip.future.completeExceptionally(clip.error);
+        } else if (state == null) {
+            clip.future.complete(null);
+        } else {
+            clip.endFrame = state.frames;
+            state.playing.offer(clip);
+            completePlayed(state);
+        }
+    }
+
+    private void completePlayed(LineState state) {
+        if (state == null) {
+            return;
+        }
+        long position = state.line.getLongFramePosition();
+        Clip clip;
+        while ((clip = state.playing.peek()) != null && clip.endFrame <= position) {
+            state.playing.poll();
+            clip.future.complete(null);
+        }
+    }
+
+    private void drain(LineState state) {
+        state.line.drain();
+        Clip clip;
+        while ((clip = state.playing.poll()) != null) {
+            clip.future.complete(null);
+        }
+    }
+
+    private LineState line(AudioFormat format) throws LineUnavailableException {
+        String key = format.toString();
+        LineState state = lines.get(key);
+        if (state == null) {
+            DataLine.Info info = new DataLine.Info(SourceDataLine.class, format, AudioSystem.NOT_SPECIFIED);
+            SourceDataLine line = (SourceDataLine) AudioSystem.getLine(info);
+            int bytesPerSecond = (int) (format.getFrameRate() * Math.max(1, format.getFrameSize()));
+            line.open(format, PcmPlayer.frameAligned(Math.max(bufferSize, bytesPerSecond * lineBufferMillis / 1000), format));
+            line.start();
+            state = new LineState(line);
+            lines.put(key, state);
+        }
+        return state;
+    }
+
+    private static void failAll(Collection<Clip> clips) {
+        Iterator<Clip> iterator = clips.iterator();
+        while (iterator.hasNext()) {
+            Clip clip = iterator.next();
+            iterator.remove();
+            if (clip != END) {
+                fail(clip);
+            }
+        }
+    }
+
+    private static void fail(Clip clip) {
+        clip.future.completeExceptionally(TtsException.of("播放队列已关闭"));
+    }
+
+    private static class Clip {
+        final Callable<AudioInputStream> source;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        final BlockingQueue<Chunk> chunks = new LinkedBlockingQueue<>();
+        /**
+         * 解码后的格式，在第一块数据之前设置
+         */
+        volatile AudioFormat format;
+        volatile Exception error;
+        /**
+         * 片段末尾在输出设备上的帧位置，只在播放线程上访问
+         */
+        long endFrame;
+
+        Clip(Callable<AudioInputStream> source) {
+            this.source = source;
+        }
+    }
+
+    private static class Chunk {
+        final byte[] data;
+        int length;
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+
+    private static class LineState {
+        final SourceDataLine line;
+        /**
+         * 已写入的帧数
+         */
+        long frames;
+        /**
+         * 已全部写入、尚未播放完的片段
+         */
+        final Deque<Clip> playing = new ArrayDeque<>();
+
+        LineState(SourceDataLine line) {
+            this.line = line;
+        }
+    }
+}
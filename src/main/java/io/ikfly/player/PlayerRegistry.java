@@ -0,0 +1,40 @@
+package io.ikfly.player;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 文件后缀到播放器（解码器）的映射，内置 mp3、wav、pcm
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+final class PlayerRegistry {
+
+    private static final Map<String, Supplier<? extends MyPlayer>> PLAYERS = new ConcurrentHashMap<>();
+
+    static {
+        PLAYERS.put("mp3", Mp3Player::new);
+        // wav 中的 pcm、A 律、μ 律由 javax.sound 直接读取
+        PLAYERS.put("wav", PcmPlayer::new);
+        PLAYERS.put("pcm", PcmPlayer::new);
+    }
+
+    private PlayerRegistry() {
+    }
+
+    static void register(String suffix, Supplier<? extends MyPlayer> factory) {
+        PLAYERS.put(normalize(suffix), factory);
+    }
+
+    static Supplier<? extends MyPlayer> get(String suffix) {
+        return PLAYERS.get(normalize(suffix));
+    }
+
+    private static String normalize(String suffix) {
+        String s = suffix.trim().toLowerCase(Locale.ROOT);
+        return s.startsWith(".") ? s.substring(1) : s;
+    }
+}
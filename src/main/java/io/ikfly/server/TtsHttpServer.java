@@ -0,0 +1,298 @@
+package io.ikfly.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.ikfly.cache.MemoryAudioCache;
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.constant.VoiceEnum;
+import io.ikfly.exceptions.TtsException;
+import io.ikfly.model.SSML;
+import io.ikfly.service.TTSService;
+import io.ikfly.util.Tools;
+import io.ikfly.util.VirtualThreads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 轻量的 HTTP 流式合成服务，基于 JDK 自带的 HttpServer，共用一个带缓存的连接池。
+ * <pre>
+ *     GET  /tts?text=你好&voice=zh-CN-XiaoxiaoNeural&format=audio-24khz-48kbitrate-mono-mp3&rate=%2B0%25&volume=%2B0%25
+ *     POST /tts?voice=...&format=...   请求体为 UTF-8 文本
+ *     GET  /health
+ * </pre>
+ * 参数需 URL 编码，如 rate=+10% 写作 rate=%2B10%25；text 按纯文本处理并做 XML 转义，rate、volume 只接受百分比，不合法时返回 400。
+ * 音频帧到达即以 chunked 编码写回客户端；每个请求在独立的（支持时为虚拟）线程上阻塞读取。
+ * 等待首个音频帧超时返回 504，中途等待超时或客户端断开时中断响应，两种情况都会取消合成请求
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class TtsHttpServer {
+
+    public static final Logger log = LoggerFactory.getLogger(TtsHttpServer.class);
+
+    /**
+     * 请求体最大字节数
+     */
+    private static final int MAX_BODY_SIZE = 64 * 1024;
+    /**
+     * rate、volume 允许的取值，如 +10%、-20.5%
+     */
+    private static final Pattern PERCENT_PATTERN = Pattern.compile("^[+-]?\\d+(\\.\\d+)?%$");
+    /**
+     * 默认的音频数据等待时间
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30_000;
+
+    private final TTSService ttsService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+
+    /**
+     * @param ttsService 合成服务，由调用方配置连接池、缓存等
+     * @param port       监听端口，0 表示随机端口
+     */
+    public TtsHttpServer(TTSService ttsService, int port) throws IOException {
+        this.ttsService = ttsService;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = VirtualThreads.newExecutor("tts-http");
+        server.setExecutor(executor);
+        server.createContext("/tts", this::handleTts);
+        server.createContext("/health", this::handleHealth);
+    }
+
+    public void start() {
+        server.start();
+        log.info("TTS HTTP 服务已启动：{}", server.getAddress());
+    }
+
+    /**
+     * 停止接收请求，最多等待 delaySeconds 秒让进行中的请求结束
+     *
+     * @param delaySeconds
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        log.info("TTS HTTP 服务已停止");
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * 等待首个音频帧及相邻音频帧的最长时间
+     *
+     * @param timeoutMillis
+     */
+    public void setTimeoutMillis(long timeoutMillis) {
+        if (timeoutMillis < 1) {
+            throw TtsException.of("等待时间必须大于0");
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        sendText(exchange, 200, "ok");
+    }
+
+    /**
+     * 抛出异常时不关闭 exchange，由 HttpServer 直接断开连接，避免中断的音频流被正常结束的 chunked 编码掩盖
+     */
+    private void handleTts(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"POST".equalsIgnoreCase(method)) {
+            exchange.getResponseHeaders().set("Allow", "GET, POST");
+            sendText(exchange, 405, "只支持 GET 和 POST");
+            exchange.close();
+            return;
+        }
+        SSML ssml;
+        try {
+            ssml = parse(exchange);
+        } catch (TtsException | IllegalArgumentException e) {
+            sendText(exchange, 400, e.getMessage());
+            exchange.close();
+            return;
+        }
+        stream(exchange, ssml);
+        exchange.close();
+    }
+
+    /**
+     * 流式合成并写回：收到首个音频帧（或失败）后才发送响应头，失败时返回 502，超时返回 504。
+     * 输入流关闭时合成未结束（超时、客户端断开）则取消请求
+     */
+    private void stream(HttpExchange exchange, SSML ssml) throws IOException {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = ttsService.synthesizeStream(ssml, timeoutMillis, TimeUnit.MILLISECONDS)) {
+            int n;
+            try {
+                n = in.read(buffer);
+            } catch (SocketTimeoutException e) {
+                log.warn("等待首个音频帧超时：{}", ssml.getSynthesisText());
+                sendText(exchange, 504, e.getMessage());
+                return;
+            } catch (IOException e) {
+                log.warn("合成失败：{}，{}", ssml.getSynthesisText(), e.getMessage());
+                sendText(exchange, 502, e.getMessage());
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", contentType(ssml.getOutputFormat()));
+            exchange.sendResponseHeaders(200, n < 0 ? -1 : 0);
+            if (n < 0) {
+                return;
+            }
+            OutputStream out = exchange.getResponseBody();
+            try {
+                do {
+                    out.write(buffer, 0, n);
+                    // 当前没有更多数据时立即发出，降低首包延迟
+                    if (in.available() == 0) {
+                        out.flush();
+                    }
+                } while ((n = in.read(buffer)) >= 0);
+                out.flush();
+            } catch (IOException e) {
+                // 响应头已发出，只能中断连接；关闭输入流时取消合成
+                log.warn("音频流中断：{}，{}", ssml.getSynthesisText(), e.getMessage());
+                throw e;
+            }
+        }
+    }
+
+    private SSML parse(HttpExchange exchange) throws IOException {
+        Map<String, String> params = query(exchange.getRequestURI().getRawQuery());
+        String text = params.get("text");
+        if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+            String body = readBody(exchange.getRequestBody());
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            Map<String, String> form = contentType != null && contentType.startsWith("application/x-www-form-urlencoded")
+                    ? query(body) : null;
+            if (form != null && form.containsKey("text")) {
+                params.putAll(form);
+                text = params.get("text");
+            } else if (!body.isEmpty()) {
+                // 其他类型（包括未写 text 字段的表单）按纯文本处理
+                text = body;
+            }
+        }
+        if (text == null || text.trim().isEmpty() || Tools.isNoVoice(text)) {
+            throw TtsException.of("缺少合成文本 text");
+        }
+        SSML.SSMLBuilder builder = SSML.builder().synthesisText(Tools.escapeXml(text));
+        String voice = params.get("voice");
+        if (voice != null && !voice.isEmpty()) {
+            VoiceEnum voiceEnum = VoiceEnum.of(voice);
+            if (voiceEnum == null) {
+                throw TtsException.of("未知语音：" + voice);
+            }
+            builder.voice(voiceEnum);
+        }
+        String format = params.get("format");
+        OutputFormat outputFormat = OutputFormat.audio_24khz_48kbitrate_mono_mp3;
+        if (format != null && !format.isEmpty()) {
+            outputFormat = OutputFormat.of(format);
+            if (outputFormat == null) {
+                throw TtsException.of("未知输出格式：" + format);
+            }
+        }
+        builder.outputFormat(outputFormat);
+        if (params.containsKey("rate")) {
+            builder.rate(percent("rate", params.get("rate")));
+        }
+        if (params.containsKey("volume")) {
+            builder.volume(percent("volume", params.get("volume")));
+        }
+        return builder.build();
+    }
+
+    private static String percent(String name, String value) {
+        if (!PERCENT_PATTERN.matcher(value).matches()) {
+            throw TtsException.of(name + " 需为百分比，如 +10%（URL 编码为 %2B10%25）：" + value);
+        }
+        return value;
+    }
+
+    private static String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+            if (out.size() > MAX_BODY_SIZE) {
+                throw TtsException.of("请求体过大");
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> query(String query) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            } catch (IllegalArgumentException e) {
+                throw TtsException.of("参数编码错误：" + pair);
+            }
+        }
+        return params;
+    }
+
+    static String contentType(OutputFormat format) {
+        return (format == null ? OutputFormat.audio_24khz_48kbitrate_mono_mp3 : format).getMimeType();
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = String.valueOf(text).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 启动参数：端口（默认 8080）、连接池大小（默认 4）
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int poolSize = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        TTSService ts = new TTSService(poolSize);
+        ts.setSaveAudioFile(false);
+        ts.setAudioCache(new MemoryAudioCache(64 * 1024 * 1024));
+        TtsHttpServer server = new TtsHttpServer(ts, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(5);
+            ts.close();
+        }));
+        server.start();
+    }
+}
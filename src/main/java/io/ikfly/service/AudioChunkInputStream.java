@@ -0,0 +1,172 @@
+package io.ikfly.service;
+
+import io.ikfly.model.SynthesisResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把流式收到的音频帧转成 InputStream，读取方在数据到达前阻塞。
+ * 写入不会阻塞 ws 读线程，读取跟不上时数据在队列中暂存。
+ * 等待超时或未读完就关闭时取消对应的合成请求
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class AudioChunkInputStream extends InputStream implements AudioChunkListener {
+
+    /**
+     * 结束标记
+     */
+    private static final ByteBuffer EOF = ByteBuffer.allocate(0);
+
+    private final BlockingQueue<ByteBuffer> chunks = new LinkedBlockingQueue<>();
+    /**
+     * 每次读取等待音频数据的最长时间，0 表示一直等待
+     */
+    private final long timeoutNanos;
+    private volatile CompletableFuture<SynthesisResult> future;
+    private volatile Throwable error;
+    /**
+     * 已收到结束或失败回调
+     */
+    private volatile boolean ended;
+    private volatile boolean closed;
+
+    private ByteBuffer current = EOF;
+    private boolean finished;
+
+    public AudioChunkInputStream() {
+        this(0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param timeout 每次读取等待音频数据的最长时间，包括首个音频帧，0 表示一直等待
+     * @param unit
+     */
+    public AudioChunkInputStream(long timeout, TimeUnit unit) {
+        this.timeoutNanos = unit.toNanos(timeout);
+    }
+
+    /**
+     * 关联合成请求，超时或提前关闭时取消
+     */
+    void bind(CompletableFuture<SynthesisResult> future) {
+        this.future = future;
+        if (closed && !ended) {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * @return 关联的合成请求，未关联时为 null
+     */
+    public CompletableFuture<SynthesisResult> getFuture() {
+        return future;
+    }
+
+    @Override
+    public void onAudio(ByteBuffer chunk) {
+        if (!closed && chunk.hasRemaining()) {
+            chunks.offer(chunk);
+        }
+    }
+
+    @Override
+    public void onComplete(SynthesisResult result) {
+        ended = true;
+        chunks.offer(EOF);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        error = t;
+        ended = true;
+        chunks.offer(EOF);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.remaining());
+        current.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current.remaining();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        chunks.clear();
+        finished = true;
+        cancel();
+    }
+
+    /**
+     * 合成未结束时取消请求
+     */
+    private void cancel() {
+        CompletableFuture<SynthesisResult> f = future;
+        if (f != null && !ended) {
+            f.cancel(false);
+        }
+    }
+
+    /**
+     * 当前帧读完时取下一帧
+     *
+     * @return 没有更多数据时返回 false
+     */
+    private boolean fill() throws IOException {
+        while (!current.hasRemaining()) {
+            if (finished) {
+                return false;
+            }
+            ByteBuffer next;
+            try {
+                next = timeoutNanos > 0 ? chunks.poll(timeoutNanos, TimeUnit.NANOSECONDS) : chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待音频数据被中断");
+            }
+            if (next == null) {
+                finished = true;
+                cancel();
+                throw new SocketTimeoutException("等待音频数据超时");
+            }
+            current = next;
+            if (current == EOF) {
+                finished = true;
+                if (error != null) {
+                    throw new IOException("语音合成失败：" + error.getMessage(), error);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+package io.ikfly.service;
+
+import io.ikfly.model.SynthesisResult;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 流式接收音频数据，每收到一个音频帧回调一次。
+ * 回调在 ws 读线程上执行，不要在其中做耗时操作
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public interface AudioChunkListener {
+
+    /**
+     * 收到一段音频数据
+     *
+     * @param chunk 音频帧中的音频数据，归接收方所有，可以保留引用
+     */
+    void onAudio(ByteBuffer chunk);
+
+    /**
+     * 合成结束
+     *
+     * @param result 合成结果，流式合成时不包含音频数据和文件路径
+     */
+    default void onComplete(SynthesisResult result) {
+    }
+
+    /**
+     * 合成失败
+     *
+     * @param t
+     */
+    default void onError(Throwable t) {
+    }
+}
@@ -0,0 +1,128 @@
+package io.ikfly.service;
+
+import io.ikfly.exceptions.TtsException;
+import io.ikfly.util.Tools;
+import okio.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 音频文件写出：在独立的 I/O 线程上写临时文件，写完后原子改名为目标文件，ws 读线程不等待磁盘
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+class AudioFileWriter {
+
+    public static final Logger log = LoggerFactory.getLogger(AudioFileWriter.class);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "tts-audio-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 磁盘 I/O 线程，需要写文件的后续处理可以提交到这里
+     *
+     * @return
+     */
+    ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * 异步写出音频文件
+     *
+     * @param target 目标文件
+     * @param data   音频数据，按 ByteString 的分段直接写入文件通道
+     * @return 写出的文件
+     */
+    CompletableFuture<File> write(File target, ByteString data) {
+        return write(target, null, data);
+    }
+
+    /**
+     * 异步写出带头部的音频文件
+     *
+     * @param target 目标文件
+     * @param header 文件头部，如 wav 头部，为空时不写
+     * @param data   音频数据
+     * @return 写出的文件
+     */
+    CompletableFuture<File> write(File target, ByteString header, ByteString data) {
+        return CompletableFuture.supplyAsync(() -> {
+            Path temp = tempFile(target);
+            try {
+                try (FileChannel channel = open(temp)) {
+                    OutputStream out = Channels.newOutputStream(channel);
+                    if (header != null) {
+                        header.write(out);
+                    }
+                    data.write(out);
+                }
+                commit(temp, target);
+                return target;
+            } catch (IOException e) {
+                delete(temp);
+                log.error(e.getMessage(), e);
+                throw TtsException.of("音频文件写出异常，" + e.getMessage());
+            }
+        }, executor);
+    }
+
+    /**
+     * 目标文件同目录下的临时文件，保证改名在同一文件系统内完成
+     *
+     * @param target
+     * @return
+     */
+    static Path tempFile(File target) {
+        Path path = target.getAbsoluteFile().toPath();
+        return path.resolveSibling("." + path.getFileName() + "." + Tools.getRandomId() + ".tmp");
+    }
+
+    static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * 临时文件改名为目标文件，覆盖已存在的文件
+     *
+     * @param temp
+     * @param target
+     */
+    static void commit(Path temp, File target) throws IOException {
+        try {
+            Files.move(temp, target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败：{}，{}", path, e.getMessage());
+        }
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,20 @@
+package io.ikfly.service;
+
+import io.ikfly.model.AudioFrame;
+
+/**
+ * 直接读取 ws 音频帧的接收方：不为每帧复制出 ByteBuffer，由实现按需从帧中复制音频数据。
+ * 缓存命中等没有音频帧的场景仍然回调 {@link #onAudio}
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public interface AudioFrameListener extends AudioChunkListener {
+
+    /**
+     * 收到一个音频帧
+     *
+     * @param frame 解码后的音频帧，实例会被复用，只在回调期间有效
+     */
+    void onAudioFrame(AudioFrame frame);
+}
@@ -0,0 +1,200 @@
+package io.ikfly.service;
+
+import io.ikfly.model.SSML;
+import io.ikfly.model.SynthesisResult;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reactive Streams 音频发布者：每个订阅者订阅时发起一次流式合成，音频帧按订阅者请求的数量下发。
+ * <p>
+ * 多个请求共用一个 ws 连接，不能为单个订阅者暂停读取，因此超出需求的音频帧暂存在该订阅的队列中，
+ * 最多为一次合成的音频；取消订阅时丢弃暂存的音频，尚未发送的请求不再发送。
+ * JDK 9 及以上可以用 {@code org.reactivestreams.FlowAdapters.toFlowPublisher} 转为 {@code Flow.Publisher}
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class AudioPublisher implements Publisher<ByteBuffer> {
+
+    private final TTSService ttsService;
+    private final SSML ssml;
+
+    AudioPublisher(TTSService ttsService, SSML ssml) {
+        this.ttsService = ttsService;
+        this.ssml = ssml;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        Objects.requireNonNull(subscriber);
+        AudioSubscription subscription = new AudioSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+    }
+
+    /**
+     * 一个订阅：接收合成回调的音频帧，按需求量下发
+     */
+    private class AudioSubscription implements Subscription, AudioChunkListener {
+
+        private final Subscriber<? super ByteBuffer> subscriber;
+        private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        /**
+         * 下发循环的重入计数，保证同一时刻只有一个线程回调订阅者
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile CompletableFuture<SynthesisResult> future;
+        private volatile boolean done;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+
+        AudioSubscription(Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void start() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                future = ttsService.synthesizeAsync(ssml, this);
+            } catch (RuntimeException e) {
+                onError(e);
+                return;
+            }
+            if (cancelled) {
+                future.cancel(false);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // 规范 §3.9
+                CompletableFuture<SynthesisResult> f = future;
+                if (f != null) {
+                    f.cancel(false);
+                }
+                onError(new IllegalArgumentException("request 数量必须大于0：" + n));
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                if (current == Long.MAX_VALUE) {
+                    break;
+                }
+                next = current + n;
+                if (next < 0) {
+                    next = Long.MAX_VALUE;
+                }
+            } while (!requested.compareAndSet(current, next));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            CompletableFuture<SynthesisResult> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+            drain();
+        }
+
+        @Override
+        public void onAudio(ByteBuffer chunk) {
+            if (!cancelled && chunk.hasRemaining()) {
+                queue.offer(chunk);
+                drain();
+            }
+        }
+
+        @Override
+        public void onComplete(SynthesisResult result) {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            if (error == null) {
+                error = t;
+            }
+            done = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            for (; ; ) {
+                long r = requested.get();
+                long emitted = 0;
+                while (emitted != r) {
+                    if (terminate()) {
+                        return;
+                    }
+                    ByteBuffer chunk = queue.poll();
+                    if (chunk == null) {
+                        break;
+                    }
+                    subscriber.onNext(chunk);
+                    emitted++;
+                }
+                if (terminate()) {
+                    return;
+                }
+                if (emitted != 0 && r != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 已取消时丢弃暂存的音频；出错时立即通知；正常结束时在暂存的音频下发完后通知
+         *
+         * @return 是否已终止
+         */
+        private boolean terminate() {
+            if (cancelled) {
+                queue.clear();
+                return true;
+            }
+            if (!done) {
+                return false;
+            }
+            Throwable t = error;
+            if (t != null) {
+                cancelled = true;
+                queue.clear();
+                subscriber.onError(t);
+                return true;
+            }
+            if (queue.isEmpty()) {
+                cancelled = true;
+                subscriber.onComplete();
+                return true;
+            }
+            return false;
+        }
+    }
+}
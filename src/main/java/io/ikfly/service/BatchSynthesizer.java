@@ -0,0 +1,447 @@
+package io.ikfly.service;
+
+import io.ikfly.constant.VoiceEnum;
+import io.ikfly.exceptions.TtsException;
+import io.ikfly.model.BatchProgress;
+import io.ikfly.model.SSML;
+import io.ikfly.model.SynthesisResult;
+import io.ikfly.util.Tools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 批量合成：从迭代器、流或 CSV/JSONL 文件逐条读取请求，通过连接池并发合成。
+ * 同时未完成的请求数有上限，达到上限时停止读取（背压），失败的请求按次数重试，并定期报告进度、吞吐量和剩余时间
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class BatchSynthesizer {
+
+    public static final Logger log = LoggerFactory.getLogger(BatchSynthesizer.class);
+
+    private final TTSService ttsService;
+    /**
+     * 同时未完成（合成中和排队中）的请求数上限
+     */
+    private int maxConcurrency;
+    /**
+     * 单条请求失败后的重试次数
+     */
+    private int maxRetries = 2;
+    /**
+     * 进度报告间隔
+     */
+    private long progressIntervalMillis = 1000;
+    private Consumer<BatchProgress> progressListener;
+    private BiConsumer<SSML, Throwable> failureHandler;
+
+    /**
+     * @param ttsService 并发上限默认为连接池容量的 2 倍，保证连接空闲时总有请求在排队
+     */
+    public BatchSynthesizer(TTSService ttsService) {
+        this.ttsService = ttsService;
+        this.maxConcurrency = ttsService.getPoolSize() * ttsService.getMaxInFlightPerConnection() * 2;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw TtsException.of("并发数必须大于0");
+        }
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw TtsException.of("重试次数不能小于0");
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    public long getProgressIntervalMillis() {
+        return progressIntervalMillis;
+    }
+
+    public void setProgressIntervalMillis(long progressIntervalMillis) {
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    /**
+     * 设置进度回调，最多每 progressIntervalMillis 调用一次，结束时再调用一次；在合成完成的线程上回调
+     *
+     * @param progressListener
+     */
+    public void setProgressListener(Consumer<BatchProgress> progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * 设置失败回调，重试后仍失败的请求和最后一次的异常
+     *
+     * @param failureHandler
+     */
+    public void setFailureHandler(BiConsumer<SSML, Throwable> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    public BatchProgress run(Collection<SSML> items) {
+        return run(items.iterator(), items.size());
+    }
+
+    public BatchProgress run(Stream<SSML> items) {
+        return run(items.iterator(), -1);
+    }
+
+    public BatchProgress run(Iterator<SSML> items) {
+        return run(items, -1);
+    }
+
+    /**
+     * 合成 CSV 中的每一行，列依次为文本、语音、文件名，后两列可省略；首行第一列为 text 时视为表头跳过。
+     * 语速、音量、输出格式等其他参数取自 template
+     *
+     * @param reader
+     * @param template
+     * @return
+     */
+    public BatchProgress runCsv(Reader reader, SSML template) {
+        return run(new CsvRows(reader, template), -1);
+    }
+
+    /**
+     * 合成 JSONL 中的每一行，字段 text、voice、filename，后两个可省略。
+     * 语速、音量、输出格式等其他参数取自 template
+     *
+     * @param reader
+     * @param template
+     * @return
+     */
+    public BatchProgress runJsonl(Reader reader, SSML template) {
+        return run(new JsonlRows(reader, template), -1);
+    }
+
+    /**
+     * 合成全部请求，阻塞到所有请求结束
+     *
+     * @param items 逐条读取，达到并发上限时暂停读取
+     * @param total 总数，用于估算剩余时间，未知时为 -1
+     * @return 最终进度
+     */
+    public BatchProgress run(Iterator<SSML> items, long total) {
+        Job job = new Job(total, maxConcurrency);
+        try {
+            while (items.hasNext()) {
+                job.permits.acquire();
+                SSML ssml;
+                try {
+                    ssml = items.next();
+                } catch (RuntimeException e) {
+                    // 单行数据错误不影响其余请求
+                    job.submitted.incrementAndGet();
+                    job.failed.incrementAndGet();
+                    try {
+                        job.onFailed(null, e);
+                    } finally {
+                        job.permits.release();
+                    }
+                    continue;
+                }
+                job.submitted.incrementAndGet();
+                attempt(job, ssml, 0);
+                job.report(false);
+            }
+            // 等待所有请求结束
+            job.permits.acquire(job.concurrency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw TtsException.of("批量合成被中断");
+        }
+        return job.report(true);
+    }
+
+    private void attempt(Job job, SSML ssml, int retry) {
+        CompletableFuture<SynthesisResult> future;
+        try {
+            future = ttsService.synthesizeAsync(ssml);
+        } catch (RuntimeException e) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+        }
+        future.whenComplete((result, e) -> {
+            if (e != null && retry < maxRetries) {
+                job.retries.incrementAndGet();
+                log.warn("合成失败，第 {} 次重试：{}，{}", retry + 1, ssml.getSynthesisText(), e.getMessage());
+                attempt(job, ssml, retry + 1);
+                return;
+            }
+            (e == null ? job.succeeded : job.failed).incrementAndGet();
+            // 回调结束后再归还许可，保证 run 返回前所有回调都已执行；回调抛出的异常不影响归还
+            try {
+                if (e != null) {
+                    job.onFailed(ssml, e);
+                }
+                job.report(false);
+            } finally {
+                job.permits.release();
+            }
+        });
+    }
+
+    /**
+     * 一次批量合成的计数和进度报告
+     */
+    private class Job {
+        private final long total;
+        private final int concurrency;
+        private final Semaphore permits;
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong lastReportNanos = new AtomicLong(System.nanoTime());
+
+        Job(long total, int concurrency) {
+            this.total = total;
+            this.concurrency = concurrency;
+            this.permits = new Semaphore(concurrency);
+        }
+
+        /**
+         * 记录失败并调用失败回调，回调抛出的异常只记录日志
+         */
+        void onFailed(SSML ssml, Throwable e) {
+            log.error("合成失败：" + (ssml == null ? "" : ssml.getSynthesisText()), e);
+            BiConsumer<SSML, Throwable> handler = failureHandler;
+            if (handler != null) {
+                try {
+                    handler.accept(ssml, e);
+                } catch (RuntimeException ex) {
+                    log.error("失败回调执行出错：" + ex.getMessage(), ex);
+                }
+            }
+        }
+
+        /**
+         * 报告进度，距上次报告不足间隔时跳过
+         *
+         * @param force 是否强制报告
+         * @return 当前进度
+         */
+        BatchProgress report(boolean force) {
+            long now = System.nanoTime();
+            long last = lastReportNanos.get();
+            boolean due = now - last >= progressIntervalMillis * 1_000_000L && lastReportNanos.compareAndSet(last, now);
+            if (!force && !due) {
+                return null;
+            }
+            BatchProgress progress = new BatchProgress(total, submitted.get(), succeeded.get(), failed.get(), retries.get(), now - startNanos);
+            log.info("批量合成进度：{}", progress);
+            Consumer<BatchProgress> listener = progressListener;
+            if (listener != null) {
+                try {
+                    listener.accept(progress);
+                } catch (RuntimeException e) {
+                    log.error("进度回调执行出错：" + e.getMessage(), e);
+                }
+            }
+            return progress;
+        }
+    }
+
+    /**
+     * 按行读取请求，hasNext 读取下一条记录，next 解析为 SSML
+     */
+    abstract static class Rows implements Iterator<SSML> {
+        private final BufferedReader reader;
+        protected final SSML template;
+        private String record;
+
+        Rows(Reader reader, SSML template) {
+            this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+            this.template = template;
+        }
+
+        /**
+         * 读取一条记录，返回 null 表示结束
+         */
+        protected String readRecord(BufferedReader reader) throws IOException {
+            return reader.readLine();
+        }
+
+        protected abstract SSML parse(String record);
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (record == null) {
+                    String line = readRecord(reader);
+                    if (line == null) {
+                        return false;
+                    }
+                    if (!line.trim().isEmpty()) {
+                        record = line;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw TtsException.of("读取批量合成数据失败，" + e.getMessage());
+            }
+        }
+
+        @Override
+        public SSML next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String current = record;
+            record = null;
+            return parse(current);
+        }
+
+        protected SSML build(String text, String voice, String fileName) {
+            if (text == null || text.trim().isEmpty()) {
+                throw TtsException.of("文本为空");
+            }
+            // 文件中的文本按纯文本处理，转义后放入 ssml
+            SSML.SSMLBuilder builder = template.toBuilder().synthesisText(Tools.escapeXml(text));
+            if (voice != null && !voice.trim().isEmpty()) {
+                VoiceEnum voiceEnum = VoiceEnum.of(voice);
+                if (voiceEnum == null) {
+                    throw TtsException.of("未知语音：" + voice);
+                }
+                builder.voice(voiceEnum);
+            }
+            if (fileName != null && !fileName.trim().isEmpty()) {
+                builder.outputFileName(fileName.trim());
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * CSV 行：逗号分隔，双引号包围的字段中可以有逗号、换行和转义的双引号（""）
+     */
+    static class CsvRows extends Rows {
+        private boolean first = true;
+
+        CsvRows(Reader reader, SSML template) {
+            super(reader, template);
+        }
+
+        @Override
+        protected String readRecord(BufferedReader reader) throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            StringBuilder record = new StringBuilder(line);
+            // 引号未闭合时字段跨行
+            while (quotes(record) % 2 != 0) {
+                String next = reader.readLine();
+                if (next == null) {
+                    break;
+                }
+                record.append('\n').append(next);
+            }
+            String result = record.toString();
+            if (first) {
+                first = false;
+                List<String> columns = split(result);
+                if (!columns.isEmpty() && "text".equalsIgnoreCase(columns.get(0).trim())) {
+                    return "";
+                }
+            }
+            return result;
+        }
+
+        @Override
+        protected SSML parse(String record) {
+            List<String> columns = split(record);
+            return build(columns.get(0), column(columns, 1), column(columns, 2));
+        }
+
+        private static String column(List<String> columns, int index) {
+            return index < columns.size() ? columns.get(index) : null;
+        }
+
+        private static int quotes(CharSequence s) {
+            int count = 0;
+            for (int i = 0; i < s.length(); i++) {
+                if (s.charAt(i) == '"') {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private static List<String> split(String record) {
+            List<String> columns = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < record.length(); i++) {
+                char c = record.charAt(i);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    columns.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            columns.add(field.toString());
+            return columns;
+        }
+    }
+
+    /**
+     * JSONL 行：每行一个 JSON 对象
+     */
+    static class JsonlRows extends Rows {
+
+        JsonlRows(Reader reader, SSML template) {
+            super(reader, template);
+        }
+
+        @Override
+        protected SSML parse(String record) {
+            return build(Tools.getJsonString(record, "text"), Tools.getJsonString(record, "voice"),
+                    Tools.getJsonString(record, "filename"));
+        }
+    }
+}
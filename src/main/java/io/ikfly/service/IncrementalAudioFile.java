@@ -0,0 +1,136 @@
+package io.ikfly.service;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.exceptions.TtsException;
+import io.ikfly.util.WavHeader;
+import okio.Buffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 边合成边写的音频文件：每个音频帧到达后交给 I/O 线程追加到临时文件，
+ * 合成结束时改名为目标文件，失败时删除临时文件。I/O 线程按提交顺序执行，帧的顺序不会乱
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+class IncrementalAudioFile {
+
+    private final ExecutorService executor;
+    private final File target;
+    private final Path temp;
+    /**
+     * 需要 wav 头部时的音频格式，为空时不写头部
+     */
+    private final OutputFormat waveFormat;
+
+    /**
+     * 以下字段只在 I/O 线程上访问
+     */
+    private FileChannel channel;
+    private OutputStream out;
+    private IOException error;
+    private long dataLength;
+
+    IncrementalAudioFile(AudioFileWriter writer, File target) {
+        this(writer, target, null);
+    }
+
+    /**
+     * @param writer
+     * @param target
+     * @param format 音频格式，{@link OutputFormat#isWaveCompatible()} 时先写入占位的 wav 头部，结束时按实际长度改写
+     */
+    IncrementalAudioFile(AudioFileWriter writer, File target, OutputFormat format) {
+        this.executor = writer.executor();
+        this.target = target;
+        this.temp = AudioFileWriter.tempFile(target);
+        this.waveFormat = format != null && format.isWaveCompatible() ? format : null;
+        executor.execute(() -> {
+            try {
+                channel = AudioFileWriter.open(temp);
+                out = Channels.newOutputStream(channel);
+                if (waveFormat != null) {
+                    WavHeader.of(waveFormat, 0).write(out);
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+        });
+    }
+
+    /**
+     * 追加一段音频
+     *
+     * @param chunk 归本对象所有，写出后清空
+     */
+    void append(Buffer chunk) {
+        executor.execute(() -> {
+            if (error != null) {
+                chunk.clear();
+                return;
+            }
+            try {
+                dataLength += chunk.size();
+                chunk.writeTo(out);
+            } catch (IOException e) {
+                error = e;
+            }
+        });
+    }
+
+    /**
+     * 合成结束，写完已提交的音频后改名为目标文件
+     *
+     * @return 目标文件
+     */
+    CompletableFuture<File> finish() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                if (error == null && waveFormat != null && channel != null) {
+                    channel.write(WavHeader.of(waveFormat, dataLength).asByteBuffer(), 0);
+                }
+                closeChannel();
+                if (error != null) {
+                    throw error;
+                }
+                AudioFileWriter.commit(temp, target);
+                return target;
+            } catch (IOException e) {
+                AudioFileWriter.delete(temp);
+                AudioFileWriter.log.error(e.getMessage(), e);
+                throw TtsException.of("音频文件写出异常，" + e.getMessage());
+            }
+        }, executor);
+    }
+
+    /**
+     * 合成失败，删除临时文件
+     */
+    void abort() {
+        executor.execute(() -> {
+            try {
+                closeChannel();
+            } catch (IOException ignore) {
+                // 临时文件随后删除
+            }
+            AudioFileWriter.delete(temp);
+        });
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            FileChannel c = channel;
+            channel = null;
+            out = null;
+            c.close();
+        }
+    }
+}
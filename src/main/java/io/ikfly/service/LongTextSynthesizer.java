@@ -0,0 +1,356 @@
+package io.ikfly.service;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.exceptions.TtsException;
+import io.ikfly.model.SSML;
+import io.ikfly.model.SynthesisResult;
+import io.ikfly.util.Tools;
+import io.ikfly.util.WavHeader;
+import okio.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * 长文本合成：按句子和标点切分文本，通过连接池并行合成各段，再按顺序写入同一个音频文件。
+ * 各段音频直接拼接，适用于 mp3 和 raw 格式，ogg/webm 等容器格式拼接后只能播放第一段。
+ * 同时合成的段数有上限，前面的段写出后再提交后面的段，内存中最多保留上限个段的音频
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class LongTextSynthesizer {
+
+    public static final Logger log = LoggerFactory.getLogger(LongTextSynthesizer.class);
+
+    /**
+     * 句子结束符
+     */
+    private static final String SENTENCE_ENDS = "。！？!?；;…\n";
+    /**
+     * 句内停顿符，句子过长时在这里断开
+     */
+    private static final String PAUSES = "，,、：:）)”\"' \t";
+
+    private final TTSService ttsService;
+    /**
+     * 单次合成请求的最大字符数
+     */
+    private int maxChunkLength = 300;
+    /**
+     * 已提交、尚未写出的段数上限
+     */
+    private int maxChunksInFlight;
+
+    /**
+     * @param ttsService 同时合成的段数默认为连接池容量
+     */
+    public LongTextSynthesizer(TTSService ttsService) {
+        this.ttsService = ttsService;
+        this.maxChunksInFlight = ttsService.getPoolSize() * ttsService.getMaxInFlightPerConnection();
+    }
+
+    public int getMaxChunksInFlight() {
+        return maxChunksInFlight;
+    }
+
+    public void setMaxChunksInFlight(int maxChunksInFlight) {
+        if (maxChunksInFlight < 1) {
+            throw TtsException.of("同时合成的段数必须大于0");
+        }
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    public int getMaxChunkLength() {
+        return maxChunkLength;
+    }
+
+    public void setMaxChunkLength(int maxChunkLength) {
+        if (maxChunkLength < 1) {
+            throw TtsException.of("分段长度必须大于0");
+        }
+        this.maxChunkLength = maxChunkLength;
+    }
+
+    /**
+     * 合成长文本，文本、语音、语速、音量、输出格式和文件名取自 ssml
+     *
+     * @param ssml
+     * @return 合成结果，包含输出文件路径，不包含音频数据
+     */
+    public CompletableFuture<SynthesisResult> synthesize(SSML ssml) {
+        long submitNanos = System.nanoTime();
+        OutputFormat format = Optional.ofNullable(ssml.getOutputFormat()).orElse(OutputFormat.audio_24khz_48kbitrate_mono_mp3);
+        List<String> chunks = split(ssml.getSynthesisText());
+        if (chunks.isEmpty()) {
+            throw TtsException.of("没有可合成的文本");
+        }
+        File file = ttsService.audioFile(format, SynthesisTask.outputFileName(ssml));
+        log.debug("长文本分为 {} 段合成：{}", chunks.size(), file);
+
+        AudioFileWriter writer = ttsService.audioFileWriter();
+        Path temp = AudioFileWriter.tempFile(file);
+        FileChannel out;
+        try {
+            out = AudioFileWriter.open(temp);
+            if (format.isWaveCompatible()) {
+                // 占位的 wav 头部，写完后按实际长度改写
+                out.write(WavHeader.of(format, 0).asByteBuffer());
+            }
+        } catch (IOException e) {
+            throw TtsException.of("音频文件写出异常，" + e.getMessage());
+        }
+        OutputStream stream = Channels.newOutputStream(out);
+        Chunks pending = new Chunks(ssml, format, chunks, maxChunksInFlight);
+        // 按顺序在 I/O 线程上写入：第 i 段在前 i-1 段写完且自身合成完成后写入，写完后提交第 i + window 段
+        CompletableFuture<Long> written = CompletableFuture.completedFuture(0L);
+        for (int i = 0; i < chunks.size(); i++) {
+            int index = i;
+            written = written.thenCombineAsync(pending.results.get(i), (size, result) -> {
+                Buffer audio = pending.audio.get(index);
+                try {
+                    long n = audio.size();
+                    audio.writeTo(stream);
+                    pending.submit(index + pending.window);
+                    return size + n;
+                } catch (IOException e) {
+                    TtsException ex = TtsException.of("音频文件写出异常，" + e.getMessage());
+                    pending.abort(ex);
+                    throw ex;
+                }
+            }, writer.executor());
+        }
+        pending.start();
+        return written.handleAsync((size, e) -> {
+            try {
+                if (e == null && format.isWaveCompatible()) {
+                    out.write(WavHeader.of(format, size).asByteBuffer(), 0);
+                }
+                out.close();
+                if (e == null) {
+                    AudioFileWriter.commit(temp, file);
+                }
+            } catch (IOException ex) {
+                log.error(ex.getMessage(), ex);
+                if (e == null) {
+                    e = ex;
+                }
+            }
+            if (e != null) {
+                pending.abort(e);
+                AudioFileWriter.delete(temp);
+                // 抛出最先发生的失败，而不是因它被取消的其他段
+                Throwable cause = pending.cause;
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : TtsException.of(cause.getMessage());
+            }
+            log.debug("长文本合成结束：{}，{} 字节", file, size);
+            long now = System.nanoTime();
+            return new SynthesisResult(ssml.getSynthesisText(), format, null, file.getAbsolutePath(),
+                    submitNanos, submitNanos, 0, now);
+        }, writer.executor());
+    }
+
+    /**
+     * 一次长文本合成的各段：按窗口提交，各段音频在写出前暂存在对应的 Buffer 中
+     */
+    private class Chunks {
+        private final SSML ssml;
+        private final OutputFormat format;
+        private final List<String> texts;
+        private final int window;
+        /**
+         * 各段的合成结果，未提交的段也有占位，失败时一并结束，保证写出链能走到最后
+         */
+        private final List<CompletableFuture<SynthesisResult>> results;
+        private final List<Buffer> audio;
+        /**
+         * 已提交的合成请求
+         */
+        private final List<CompletableFuture<SynthesisResult>> submitted = new ArrayList<>();
+        private boolean aborted;
+        /**
+         * 最先发生的失败
+         */
+        private volatile Throwable cause;
+
+        Chunks(SSML ssml, OutputFormat format, List<String> texts, int window) {
+            this.ssml = ssml;
+            this.format = format;
+            this.texts = texts;
+            this.window = window;
+            this.results = new ArrayList<>(texts.size());
+            this.audio = new ArrayList<>(texts.size());
+            for (int i = 0; i < texts.size(); i++) {
+                CompletableFuture<SynthesisResult> result = new CompletableFuture<>();
+                result.whenComplete((r, e) -> {
+                    if (e != null) {
+                        abort(e);
+                    }
+                });
+                results.add(result);
+                audio.add(new Buffer());
+            }
+        }
+
+        void start() {
+            for (int i = 0; i < Math.min(window, texts.size()); i++) {
+                submit(i);
+            }
+        }
+
+        /**
+         * 提交第 index 段，超出范围或已中止时忽略
+         */
+        void submit(int index) {
+            if (index >= texts.size()) {
+                return;
+            }
+            Buffer buffer = audio.get(index);
+            CompletableFuture<SynthesisResult> result = results.get(index);
+            CompletableFuture<SynthesisResult> future;
+            synchronized (this) {
+                if (aborted) {
+                    return;
+                }
+                try {
+                    future = ttsService.synthesizeAsync(
+                            ssml.toBuilder().synthesisText(texts.get(index)).outputFormat(format).usePlayer(false).build(),
+                            new AudioChunkListener() {
+                                @Override
+                                public void onAudio(ByteBuffer data) {
+                                    try {
+                                        buffer.write(data);
+                                    } catch (IOException e) {
+                                        throw TtsException.of(e.getMessage());
+                                    }
+                                }
+                            });
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                submitted.add(future);
+            }
+            future.whenComplete((r, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(r);
+                }
+            });
+        }
+
+        /**
+         * 记录失败原因，以该原因结束所有未完成的段，再取消已提交的请求；只有第一次调用生效
+         *
+         * @param e 最先发生的失败
+         */
+        void abort(Throwable e) {
+            List<CompletableFuture<SynthesisResult>> cancel;
+            synchronized (this) {
+                if (aborted) {
+                    return;
+                }
+                aborted = true;
+                cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                cancel = new ArrayList<>(submitted);
+            }
+            // 先以失败原因结束占位，取消请求时传回的 CancellationException 不再覆盖
+            results.forEach(f -> f.completeExceptionally(cause));
+            cancel.forEach(f -> f.cancel(false));
+        }
+    }
+
+    /**
+     * 按句子切分文本，相邻短句合并到不超过 maxChunkLength，跳过不发音的片段
+     *
+     * @param text
+     * @return
+     */
+    public List<String> split(String text) {
+        List<String> chunks = new ArrayList<>();
+        if (text == null) {
+            return chunks;
+        }
+        StringBuilder current = new StringBuilder();
+        for (String sentence : sentences(text)) {
+            if (current.length() > 0 && current.length() + sentence.length() > maxChunkLength) {
+                addChunk(chunks, current.toString());
+                current.setLength(0);
+            }
+            current.append(sentence);
+        }
+        addChunk(chunks, current.toString());
+        return chunks;
+    }
+
+    private void addChunk(List<String> chunks, String chunk) {
+        String trimmed = chunk.trim();
+        if (!trimmed.isEmpty() && !Tools.isNoVoice(trimmed)) {
+            chunks.add(trimmed);
+        }
+    }
+
+    /**
+     * 在句子结束符后断句，超过 maxChunkLength 的句子在停顿符处再断开，仍然过长时硬切
+     */
+    private List<String> sentences(String text) {
+        List<String> sentences = new ArrayList<>();
+        int start = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            boolean end = SENTENCE_ENDS.indexOf(c) >= 0
+                    // 英文句号后跟空白才算句子结束，避免切开小数和缩写
+                    || (c == '.' && (i + 1 == length || Character.isWhitespace(text.charAt(i + 1))));
+            if (end) {
+                // 连续的结束符归入同一句
+                while (i + 1 < length && SENTENCE_ENDS.indexOf(text.charAt(i + 1)) >= 0) {
+                    i++;
+                }
+                addSentence(sentences, text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < length) {
+            addSentence(sentences, text.substring(start));
+        }
+        return sentences;
+    }
+
+    private void addSentence(List<String> sentences, String sentence) {
+        while (sentence.length() > maxChunkLength) {
+            int cut = -1;
+            for (int i = maxChunkLength - 1; i > 0; i--) {
+                if (PAUSES.indexOf(sentence.charAt(i)) >= 0) {
+                    cut = i + 1;
+                    break;
+                }
+            }
+            if (cut <= 0) {
+                cut = maxChunkLength;
+                // 不切开代理对
+                if (cut > 1 && Character.isHighSurrogate(sentence.charAt(cut - 1))) {
+                    cut--;
+                }
+            }
+            sentences.add(sentence.substring(0, cut));
+            sentence = sentence.substring(cut);
+        }
+        if (!sentence.isEmpty()) {
+            sentences.add(sentence);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.ikfly.service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 断线重连：连接异常断开后按指数退避（带随机抖动）推迟该会话的下次连接，到期后重新分派排队的请求。
+ * 重新连接时 {@code TtsSession#getOrCreateWs} 由服务端实现生成新的连接请求（Edge 为新的 Sec-MS-GEC 令牌）并重新发送配置
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+class ReconnectManager {
+
+    private final Runnable onReady;
+    private volatile long initialBackoffMillis = 500;
+    private volatile long maxBackoffMillis = 30_000;
+    /**
+     * 单个请求因连接断开而重发的最大次数
+     */
+    private volatile int maxRetries = 3;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param onReady 退避结束后执行，通常是重新分派排队的请求
+     */
+    ReconnectManager(Runnable onReady) {
+        this.onReady = onReady;
+    }
+
+    int getMaxRetries() {
+        return maxRetries;
+    }
+
+    void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+
+    long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+
+    void setBackoff(long initialBackoffMillis, long maxBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * 第 failures 次连续失败后的退避时间：初始值逐次翻倍，不超过上限，取其一半到全部之间的随机值，避免多个会话同时重连
+     *
+     * @param failures 连续失败次数，从 1 开始
+     * @return 毫秒
+     */
+    long backoffMillis(int failures) {
+        long delay = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(Math.max(failures - 1, 0), 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * 在 delayMillis 后执行 onReady
+     *
+     * @param delayMillis
+     */
+    synchronized void schedule(long delayMillis) {
+        ScheduledExecutorService executor = scheduler();
+        if (!executor.isShutdown()) {
+            executor.schedule(onReady, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 周期执行后台维护任务，与重连共用调度线程
+     *
+     * @param task
+     * @param periodMillis
+     * @return 已关闭时返回 null
+     */
+    synchronized ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long periodMillis) {
+        ScheduledExecutorService executor = scheduler();
+        if (executor.isShutdown()) {
+            return null;
+        }
+        return executor.scheduleAtFixedRate(task, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "tts-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+
+    synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package io.ikfly.service;
+
+import io.ikfly.constant.SubtitleFormat;
+import io.ikfly.model.WordBoundaryIndex;
+import okio.Buffer;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 边合成边生成字幕：词边界到达时把词归入当前字幕条，超过长度或遇到标点时结束一条并追加到字幕文件。
+ * 只在 ws 读线程上调用
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+class SubtitleWriter {
+
+    /**
+     * 在这些标点后另起一条字幕
+     */
+    private static final String CUE_BREAKS = "。！？!?；;…\n，,、：:";
+
+    private final SubtitleFormat format;
+    private final WordBoundaryIndex words;
+    private final IncrementalAudioFile file;
+    /**
+     * 单条字幕的最大字符数
+     */
+    private final int maxCueLength;
+
+    /**
+     * 下一个待处理的词
+     */
+    private int next;
+    /**
+     * 当前字幕条的首词和尾词，首词为 -1 表示没有未写出的字幕条
+     */
+    private int cueFirst = -1;
+    private int cueLast;
+    private int cueNumber;
+
+    SubtitleWriter(AudioFileWriter writer, File target, SubtitleFormat format, WordBoundaryIndex words, int maxCueLength) {
+        this.format = format;
+        this.words = words;
+        this.maxCueLength = maxCueLength;
+        this.file = new IncrementalAudioFile(writer, target);
+        if (!format.getHeader().isEmpty()) {
+            append(format.getHeader());
+        }
+    }
+
+    /**
+     * 处理新到达的词边界
+     */
+    void update() {
+        int size = words.size();
+        for (; next < size; next++) {
+            if (cueFirst >= 0 && breakBefore(next)) {
+                flush(next);
+            }
+            if (cueFirst < 0) {
+                cueFirst = next;
+            }
+            cueLast = next;
+        }
+    }
+
+    /**
+     * 合成结束，写出最后一条字幕并改名为目标文件
+     *
+     * @return 字幕文件
+     */
+    CompletableFuture<File> finish() {
+        update();
+        if (cueFirst >= 0) {
+            flush(-1);
+        }
+        return file.finish();
+    }
+
+    void abort() {
+        file.abort();
+    }
+
+    /**
+     * 当前字幕条是否应在第 i 个词前结束
+     */
+    private boolean breakBefore(int i) {
+        int lastStart = words.getTextOffset(cueLast);
+        int start = words.getTextOffset(i);
+        if (lastStart >= 0 && start >= 0) {
+            // 上一个词之后、本词之前的标点
+            for (int p = lastStart + words.getTextLength(cueLast); p < start; p++) {
+                if (CUE_BREAKS.indexOf(words.getText().charAt(p)) >= 0) {
+                    return true;
+                }
+            }
+        }
+        return cueText(cueFirst, i, -1).length() > maxCueLength;
+    }
+
+    /**
+     * 写出当前字幕条
+     *
+     * @param nextWord 下一条字幕的首词，没有时为 -1
+     */
+    private void flush(int nextWord) {
+        long start = words.getOffsetMillis(cueFirst);
+        long end = WordBoundaryIndex.ticksToMillis(words.getOffsetTicks(cueLast) + words.getDurationTicks(cueLast));
+        String text = cueText(cueFirst, cueLast, nextWord);
+        cueFirst = -1;
+        if (!text.isEmpty()) {
+            append(format.cue(++cueNumber, start, end, text));
+        }
+    }
+
+    /**
+     * 字幕文本：优先取合成文本中的原文（包含词后的标点），找不到原文时拼接词
+     *
+     * @param first    首词
+     * @param last     尾词
+     * @param nextWord 下一个词，原文截到它之前；为 -1 时截到尾词之后的标点
+     */
+    private String cueText(int first, int last, int nextWord) {
+        String text = words.getText();
+        int from = words.getTextOffset(first);
+        int lastStart = words.getTextOffset(last);
+        if (from >= 0 && lastStart >= from) {
+            int to = lastStart + words.getTextLength(last);
+            int nextStart = nextWord >= 0 ? words.getTextOffset(nextWord) : -1;
+            int limit = nextStart >= to ? nextStart : text.length();
+            while (to < limit && !Character.isLetterOrDigit(text.charAt(to))) {
+                to++;
+            }
+            return text.substring(from, to).trim();
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = first; i <= last; i++) {
+            String word = words.getWord(i);
+            if (sb.length() > 0 && !word.isEmpty()
+                    && Character.isLetterOrDigit(sb.charAt(sb.length() - 1)) && word.charAt(0) < 0x3000) {
+                sb.append(' ');
+            }
+            sb.append(word);
+        }
+        return sb.toString().trim();
+    }
+
+    private void append(String s) {
+        Buffer chunk = new Buffer();
+        chunk.writeUtf8(s);
+        file.append(chunk);
+    }
+}
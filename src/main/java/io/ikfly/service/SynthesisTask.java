@@ -0,0 +1,295 @@
+package io.ikfly.service;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.model.AudioFrame;
+import io.ikfly.model.SSML;
+import io.ikfly.model.SynthesisResult;
+import io.ikfly.model.WordBoundaryIndex;
+import io.ikfly.util.Tools;
+import okio.Buffer;
+import okio.ByteString;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 一次合成请求的状态：请求内容、音频缓冲、计时和结果
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+class SynthesisTask {
+
+    private final SSML ssml;
+    /**
+     * X-RequestId，用于在同一连接上区分多个请求的消息，重发时更换
+     */
+    private volatile String requestId = Tools.getRandomId();
+    /**
+     * 发送时连接上生效的音频输出格式
+     */
+    private volatile OutputFormat outputFormat;
+    private final CompletableFuture<SynthesisResult> future = new CompletableFuture<>();
+    /**
+     * 当前的音频流数据
+     */
+    private final Buffer audioBuffer = new Buffer();
+    /**
+     * 词边界时间索引，由 audio.metadata 消息填充
+     */
+    private volatile WordBoundaryIndex wordBoundaries;
+
+    private final long submitNanos = System.nanoTime();
+    private volatile long sendNanos;
+    private volatile long firstAudioNanos;
+    /**
+     * 收到的音频字节数
+     */
+    private volatile long audioBytes;
+    /**
+     * 因连接断开而重发的次数
+     */
+    private volatile int retries;
+
+    /**
+     * 流式接收音频，为空时音频写入缓冲，合成结束后写出文件
+     */
+    private final AudioChunkListener listener;
+    /**
+     * 是否把音频收集到缓冲，非流式请求总是收集
+     */
+    private volatile boolean collectAudio;
+    /**
+     * 边合成边写的音频文件，为空时合成结束后一次写出
+     */
+    private volatile IncrementalAudioFile incrementalFile;
+    /**
+     * 边合成边生成的字幕，为空时不生成字幕
+     */
+    private volatile SubtitleWriter subtitle;
+
+    SynthesisTask(SSML ssml) {
+        this(ssml, null);
+    }
+
+    SynthesisTask(SSML ssml, AudioChunkListener listener) {
+        this.ssml = ssml;
+        this.listener = listener;
+        this.collectAudio = listener == null;
+        this.wordBoundaries = new WordBoundaryIndex(ssml.getSynthesisText());
+    }
+
+    boolean isStreaming() {
+        return listener != null;
+    }
+
+    boolean isCollectAudio() {
+        return collectAudio;
+    }
+
+    void setCollectAudio(boolean collectAudio) {
+        this.collectAudio = collectAudio;
+    }
+
+    IncrementalAudioFile getIncrementalFile() {
+        return incrementalFile;
+    }
+
+    void setIncrementalFile(IncrementalAudioFile incrementalFile) {
+        this.incrementalFile = incrementalFile;
+    }
+
+    SubtitleWriter getSubtitle() {
+        return subtitle;
+    }
+
+    void setSubtitle(SubtitleWriter subtitle) {
+        this.subtitle = subtitle;
+    }
+
+    WordBoundaryIndex getWordBoundaries() {
+        return wordBoundaries;
+    }
+
+    SSML getSsml() {
+        return ssml;
+    }
+
+    String getRequestId() {
+        return requestId;
+    }
+
+    OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    void setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
+    CompletableFuture<SynthesisResult> getFuture() {
+        return future;
+    }
+
+    boolean isDone() {
+        return future.isDone();
+    }
+
+    long getSubmitNanos() {
+        return submitNanos;
+    }
+
+    long getSendNanos() {
+        return sendNanos;
+    }
+
+    long getFirstAudioNanos() {
+        return firstAudioNanos;
+    }
+
+    long getAudioBytes() {
+        return audioBytes;
+    }
+
+    int getRetries() {
+        return retries;
+    }
+
+    /**
+     * 连接断开后准备重发：丢弃已收到的音频、词边界和未完成的文件，更换请求 id。
+     * 流式请求已经回调过音频时无法重发，否则接收方会收到重复的音频
+     *
+     * @return 是否可以重发
+     */
+    boolean prepareRetry() {
+        if (listener != null && firstAudioNanos != 0) {
+            return false;
+        }
+        retries++;
+        requestId = Tools.getRandomId();
+        audioBuffer.clear();
+        firstAudioNanos = 0;
+        audioBytes = 0;
+        wordBoundaries = new WordBoundaryIndex(ssml.getSynthesisText());
+        IncrementalAudioFile file = incrementalFile;
+        if (file != null) {
+            file.abort();
+            incrementalFile = null;
+        }
+        SubtitleWriter writer = subtitle;
+        if (writer != null) {
+            writer.abort();
+            subtitle = null;
+        }
+        return true;
+    }
+
+    void onSend() {
+        sendNanos = System.nanoTime();
+    }
+
+    void onTurnStart() {
+        // （新的）音频流开始传输开始，清空重置buffer
+        audioBuffer.clear();
+    }
+
+    /**
+     * 收到元数据消息
+     *
+     * @param json 消息正文
+     */
+    void onMetadata(String json) {
+        if (wordBoundaries.addMetadata(json) > 0) {
+            SubtitleWriter writer = subtitle;
+            if (writer != null) {
+                writer.update();
+            }
+        }
+    }
+
+    void onAudio(AudioFrame frame) {
+        if (firstAudioNanos == 0) {
+            firstAudioNanos = System.nanoTime();
+        }
+        // 同一请求的音频帧只在一个读线程上回调
+        audioBytes += frame.getPayloadLength();
+        if (listener instanceof AudioFrameListener) {
+            ((AudioFrameListener) listener).onAudioFrame(frame);
+        } else if (listener != null) {
+            listener.onAudio(frame.payload());
+        }
+        if (collectAudio) {
+            frame.writePayloadTo(audioBuffer);
+        }
+        IncrementalAudioFile file = incrementalFile;
+        if (file != null) {
+            Buffer chunk = new Buffer();
+            frame.writePayloadTo(chunk);
+            file.append(chunk);
+        }
+    }
+
+    /**
+     * 命中缓存，流式请求一次性回调全部音频
+     *
+     * @param audio 缓存中音频的只读视图，直接交给 listener，不拷贝
+     */
+    void onCachedAudio(ByteBuffer audio) {
+        firstAudioNanos = System.nanoTime();
+        if (listener != null) {
+            listener.onAudio(audio);
+        }
+    }
+
+    ByteString readAudio() {
+        return audioBuffer.readByteString();
+    }
+
+    /**
+     * 输出文件名，未指定时取文本前 5 个字符加时间
+     *
+     * @return
+     */
+    String outputFileName() {
+        return outputFileName(ssml);
+    }
+
+    static String outputFileName(SSML ssml) {
+        String outputFileName = ssml.getOutputFileName();
+        if (outputFileName == null || "".equals(outputFileName)) {
+            String currentText = ssml.getSynthesisText();
+            outputFileName = (currentText.length() < 6 ? currentText : currentText.substring(0, 5)).replaceAll("[</|*。?\" >\\\\]", "") + Tools.localDateTime();
+        }
+        return outputFileName;
+    }
+
+    void complete(ByteString audio, String filePath) {
+        SynthesisResult result = new SynthesisResult(ssml.getSynthesisText(), outputFormat, audio, filePath, wordBoundaries,
+                submitNanos, sendNanos == 0 ? submitNanos : sendNanos, firstAudioNanos, System.nanoTime());
+        if (listener != null && !future.isDone()) {
+            try {
+                listener.onComplete(result);
+            } catch (RuntimeException e) {
+                // 如接收方在收尾时缓冲溢出，请求按失败结束
+                fail(e);
+                return;
+            }
+        }
+        future.complete(result);
+    }
+
+    void fail(Throwable t) {
+        IncrementalAudioFile file = incrementalFile;
+        if (file != null && !future.isDone()) {
+            file.abort();
+        }
+        SubtitleWriter writer = subtitle;
+        if (writer != null && !future.isDone()) {
+            writer.abort();
+        }
+        if (listener != null && !future.isDone()) {
+            listener.onError(t);
+        }
+        future.completeExceptionally(t);
+    }
+}
@@ -1,27 +1,49 @@
 package io.ikfly.service;
 
+import io.ikfly.backend.EdgeBackend;
+import io.ikfly.backend.SynthesisBackend;
+import io.ikfly.cache.AudioCache;
 import io.ikfly.constant.OutputFormat;
-import io.ikfly.constant.TtsConstants;
+import io.ikfly.constant.SubtitleFormat;
+import io.ikfly.constant.VoiceEnum;
 import io.ikfly.exceptions.TtsException;
+import io.ikfly.metrics.TtsMetrics;
 import io.ikfly.model.SSML;
-import io.ikfly.model.SpeechConfig;
-import io.ikfly.player.MyPlayer;
-import io.ikfly.util.Tools;
-import okhttp3.*;
-import okio.Buffer;
+import io.ikfly.model.SynthesisResult;
+import io.ikfly.player.PlaybackQueue;
+import io.ikfly.telephony.FrameRingBuffer;
+import io.ikfly.telephony.FrameSink;
+import io.ikfly.telephony.FrameSlicer;
+import io.ikfly.util.WavHeader;
+import okhttp3.OkHttpClient;
 import okio.ByteString;
-import org.jetbrains.annotations.NotNull;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.sound.sampled.UnsupportedAudioFileException;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * @author zh-hq
@@ -45,234 +67,860 @@ public class TTSService {
         this.baseSavePath = baseSavePath;
     }
 
-    public TTSService(){}
+    public TTSService(){
+        this(1);
+    }
     public TTSService(String baseSavePath) {
+        this(baseSavePath, 1);
+    }
+
+    public TTSService(int poolSize) {
+        this(null, poolSize);
+    }
+
+    /**
+     * @param baseSavePath 保存音频文件的目录
+     * @param poolSize     ws 连接池大小，即可同时进行的语音合成数
+     */
+    public TTSService(String baseSavePath, int poolSize) {
+        this(baseSavePath, poolSize, new EdgeBackend());
+    }
+
+    /**
+     * @param baseSavePath 保存音频文件的目录
+     * @param poolSize     ws 连接池大小，即可同时进行的语音合成数
+     * @param backend      合成服务端，如 {@link io.ikfly.backend.AzureBackend}、{@link io.ikfly.backend.MockBackend}
+     */
+    public TTSService(String baseSavePath, int poolSize, SynthesisBackend backend) {
+        if (poolSize < 1) {
+            throw TtsException.of("连接池大小必须大于0");
+        }
+        this.backend = Objects.requireNonNull(backend);
         this.baseSavePath = baseSavePath;
+        this.sessions = new ArrayList<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            sessions.add(new TtsSession(this, i));
+        }
     }
 
+    private volatile boolean isClose = false;
+
+    /**
+     * 合成服务端，新建的连接使用
+     */
+    private volatile SynthesisBackend backend;
+
+    /**
+     * 连接池中的全部会话
+     */
+    private final List<TtsSession> sessions;
     /**
-     * 正使用的音频输出格式
+     * 单个连接上同时进行的合成请求上限，大于 1 时按 X-RequestId 在同一连接上多路复用
      */
-    private volatile OutputFormat outputFormat;
+    private volatile int maxInFlightPerConnection = 1;
     /**
-     * 本次
+     * 等待空闲会话的合成请求
      */
-    private volatile String outputFileName;
+    private final Deque<SynthesisTask> pendingTasks = new ConcurrentLinkedDeque<>();
     /**
-     * 合成语音后播放
+     * 尚未结束的合成请求，关闭时等待它们完成
      */
-    private volatile boolean usePlayer;
+    private final Set<SynthesisTask> unfinishedTasks = ConcurrentHashMap.newKeySet();
+    /**
+     * 合成结束后是否写出音频文件，关闭后音频只在合成结果和缓存中（需要播放的请求仍然写出文件）
+     */
+    private volatile boolean saveAudioFile = true;
+    /**
+     * 是否边合成边写文件，开启后音频帧到达即追加到文件，不在内存中保留整段音频
+     */
+    private volatile boolean incrementalFileWrite;
+    /**
+     * 合成音频缓存，为空时不使用缓存
+     */
+    private volatile AudioCache audioCache;
+    /**
+     * 记录的缓存文件数上限
+     */
+    private static final int MAX_CACHED_FILES = 1024;
+    /**
+     * 启用缓存时，各缓存 key 最近写出的音频文件，命中缓存时复用，不再重复写出。按访问顺序淘汰
+     */
+    private final Map<String, File> cachedFiles = new LinkedHashMap<String, File>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, File> eldest) {
+            return size() > MAX_CACHED_FILES;
+        }
+    };
+    /**
+     * 随音频文件写出的字幕格式，为空时不写字幕
+     */
+    private volatile SubtitleFormat subtitleFormat;
+    /**
+     * 单条字幕的最大字符数
+     */
+    private volatile int subtitleMaxCueLength = 32;
+    /**
+     * 音频文件在独立的 I/O 线程上写出
+     */
+    private final AudioFileWriter audioFileWriter = new AudioFileWriter();
+    /**
+     * 连续播放队列，按提交顺序依次播放，不占用 ws 读线程和 I/O 线程，首次播放时创建
+     */
+    private PlaybackQueue playbackQueue;
+    /**
+     * 断线重连和在途请求重发
+     */
+    private final ReconnectManager reconnectManager = new ReconnectManager(this::dispatch);
+    /**
+     * 保持连接的会话数，由 {@link #warmUp(int, OutputFormat)} 设置
+     */
+    private volatile int warmConnections;
+    /**
+     * 连接最长使用时间，空闲连接超过后关闭重连，需短于 Sec-MS-GEC 令牌的 5 分钟有效期
+     */
+    private volatile long maxConnectionAgeMillis = TimeUnit.MINUTES.toMillis(4);
+    /**
+     * 后台健康检查间隔
+     */
+    private volatile long healthCheckIntervalMillis = TimeUnit.SECONDS.toMillis(30);
+    /**
+     * ws PING 帧发送间隔
+     */
+    private volatile long pingIntervalSeconds = 20;
+    /**
+     * 指标采集，默认不采集
+     */
+    private volatile TtsMetrics metrics = TtsMetrics.NOOP;
+    /**
+     * 等待关闭的连接数
+     */
+    private volatile CountDownLatch closeLatch;
+    private OkHttpClient okHttpClient;
 
-    //================================
+    public SynthesisBackend getBackend() {
+        return backend;
+    }
 
     /**
-     * 正在进行合成...
+     * 切换合成服务端，对之后新建的连接生效
+     *
+     * @param backend
      */
-    private volatile boolean synthesising;
+    public void setBackend(SynthesisBackend backend) {
+        this.backend = Objects.requireNonNull(backend);
+    }
 
-    private volatile boolean isClose = false;
+    public TtsMetrics getMetrics() {
+        return metrics;
+    }
 
     /**
-     * 正在进行合成的文本
+     * 设置指标采集：连接建立、排队、首包、turn.end 耗时，音频字节数，重发和失败次数。
+     * 可以使用 {@link io.ikfly.metrics.SimpleTtsMetrics} 并注册到 JMX，或实现 {@link TtsMetrics} 桥接到其他监控系统
+     *
+     * @param metrics 为空时不采集
      */
-    private volatile String currentText;
+    public void setMetrics(TtsMetrics metrics) {
+        this.metrics = Optional.ofNullable(metrics).orElse(TtsMetrics.NOOP);
+    }
+
+    public int getPoolSize() {
+        return sessions.size();
+    }
+
+    public boolean isSaveAudioFile() {
+        return saveAudioFile;
+    }
 
     /**
-     * 当前的音频流数据
+     * 设置合成结束后是否写出音频文件，默认写出。
+     * 配合 {@link io.ikfly.cache.MappedAudioCache} 使用时可以关闭，避免产生大量小文件
+     *
+     * @param saveAudioFile
      */
-    private final Buffer audioBuffer = new Buffer();
-    private OkHttpClient okHttpClient;
-    private WebSocket ws;
+    public void setSaveAudioFile(boolean saveAudioFile) {
+        this.saveAudioFile = saveAudioFile;
+    }
 
-    protected WebSocketListener webSocketListener = new WebSocketListener() {
-        @Override
-        public void onClosed(WebSocket webSocket, int code, String reason) {
-            super.onClosed(webSocket, code, reason);
-            log.debug("onClosed:{} - {}", code, reason);
-            TTSService.this.ws = null;
-            synthesising = false;
-            isClose = true;
+    public boolean isIncrementalFileWrite() {
+        return incrementalFileWrite;
+    }
+
+    /**
+     * 设置是否边合成边写文件，默认关闭。
+     * 开启后音频帧到达即交给 I/O 线程追加到临时文件，合成结束时改名为目标文件，失败时删除；
+     * 合成结果中不再包含音频数据（启用缓存时除外），内存占用不再随音频长度增长
+     *
+     * @param incrementalFileWrite
+     */
+    public void setIncrementalFileWrite(boolean incrementalFileWrite) {
+        this.incrementalFileWrite = incrementalFileWrite;
+    }
+
+    public AudioCache getAudioCache() {
+        return audioCache;
+    }
+
+    /**
+     * 设置合成音频缓存，相同文本、语音、语速、音量和输出格式的请求直接使用缓存的音频。
+     * 需要写出文件时，命中缓存的请求复用之前为同一 key 写出、仍然存在且大小一致的文件，在提交线程上直接完成；
+     * 指定了其他文件名或文件已不存在时才重新写出
+     *
+     * @param audioCache 为空时关闭缓存
+     */
+    public void setAudioCache(AudioCache audioCache) {
+        this.audioCache = audioCache;
+    }
+
+    public SubtitleFormat getSubtitleFormat() {
+        return subtitleFormat;
+    }
+
+    /**
+     * 设置随音频文件写出的字幕格式，默认不写。
+     * 字幕由合成过程中收到的词边界边合成边生成，与音频文件同名、同目录；命中缓存的请求没有词边界，不生成字幕
+     *
+     * @param subtitleFormat 为空时不写字幕
+     */
+    public void setSubtitleFormat(SubtitleFormat subtitleFormat) {
+        this.subtitleFormat = subtitleFormat;
+    }
+
+    public int getSubtitleMaxCueLength() {
+        return subtitleMaxCueLength;
+    }
+
+    /**
+     * 设置单条字幕的最大字符数，默认 32；遇到句内标点时也会另起一条
+     *
+     * @param subtitleMaxCueLength
+     */
+    public void setSubtitleMaxCueLength(int subtitleMaxCueLength) {
+        if (subtitleMaxCueLength < 1) {
+            throw TtsException.of("字幕长度必须大于0");
         }
+        this.subtitleMaxCueLength = subtitleMaxCueLength;
+    }
 
-        @Override
-        public void onClosing(WebSocket webSocket, int code, String reason) {
-            super.onClosing(webSocket, code, reason);
-            log.debug("onClosing:{} - {}", code, reason);
-            TTSService.this.ws = null;
-            synthesising = false;
+    public int getMaxRetries() {
+        return reconnectManager.getMaxRetries();
+    }
+
+    /**
+     * 设置连接断开时在途请求的最大重发次数，默认 3，为 0 时不重发。
+     * 已经回调过音频的流式请求不重发
+     *
+     * @param maxRetries
+     */
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw TtsException.of("重发次数不能小于0");
         }
+        reconnectManager.setMaxRetries(maxRetries);
+    }
 
-        @Override
-        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
-            super.onFailure(webSocket, t, response);
-            log.debug("onFailure:{} - {}", t.getMessage(), response,t);
-            TTSService.this.ws = null;
-            synthesising = false;
+    /**
+     * 设置连接异常断开后的重连退避时间，默认从 500ms 开始逐次翻倍，最长 30s
+     *
+     * @param initialBackoffMillis 首次退避时间
+     * @param maxBackoffMillis     最长退避时间
+     */
+    public void setReconnectBackoff(long initialBackoffMillis, long maxBackoffMillis) {
+        if (initialBackoffMillis < 1 || maxBackoffMillis < initialBackoffMillis) {
+            throw TtsException.of("重连退避时间设置错误");
         }
+        reconnectManager.setBackoff(initialBackoffMillis, maxBackoffMillis);
+    }
 
-        @Override
-        public void onMessage(WebSocket webSocket, String text) {
-            super.onMessage(webSocket, text);
-//            log.debug("onMessage text\r\n:{}", text);
-            if (text.contains(TtsConstants.TURN_START)) {
-                // （新的）音频流开始传输开始，清空重置buffer
-                audioBuffer.clear();
-            } else if (text.contains(TtsConstants.TURN_END)) {
-                // 音频流结束，写为文件
-                if(outputFileName == null || "".equals(outputFileName)){
-                    outputFileName = (currentText.length() < 6 ? currentText : currentText.substring(0, 5)).replaceAll("[</|*。?\" >\\\\]","") + Tools.localDateTime();
-                }
-                String absolutePath = writeAudio(outputFormat, audioBuffer.readByteString(), outputFileName);
-                if (usePlayer) {
-                    try {
-                        MyPlayer.getInstance(absolutePath).play(absolutePath);
-                    } catch (IOException | UnsupportedAudioFileException e) {
-                        log.error(absolutePath + ":音频播放失败," + e.getMessage(), e);
-                    }
-                }
-                synthesising = false;
-                usePlayer = false;
-                outputFileName = null;
+    public long getMaxConnectionAgeMillis() {
+        return maxConnectionAgeMillis;
+    }
+
+    /**
+     * 设置连接最长使用时间，默认 4 分钟。空闲连接超过后由后台健康检查关闭，
+     * 保持预热的会话随即用新的 Sec-MS-GEC 令牌重新连接
+     *
+     * @param maxConnectionAgeMillis
+     */
+    public void setMaxConnectionAgeMillis(long maxConnectionAgeMillis) {
+        if (maxConnectionAgeMillis < 1) {
+            throw TtsException.of("连接最长使用时间必须大于0");
+        }
+        this.maxConnectionAgeMillis = maxConnectionAgeMillis;
+    }
+
+    public long getHealthCheckIntervalMillis() {
+        return healthCheckIntervalMillis;
+    }
+
+    /**
+     * 设置后台健康检查间隔，默认 30 秒，在首次建立连接前设置
+     *
+     * @param healthCheckIntervalMillis
+     */
+    public void setHealthCheckIntervalMillis(long healthCheckIntervalMillis) {
+        if (healthCheckIntervalMillis < 1) {
+            throw TtsException.of("健康检查间隔必须大于0");
+        }
+        this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+    }
+
+    public long getPingIntervalSeconds() {
+        return pingIntervalSeconds;
+    }
+
+    /**
+     * 设置 ws PING 帧发送间隔，默认 20 秒，对之后建立的连接生效
+     *
+     * @param pingIntervalSeconds 为 0 时不发送
+     */
+    public synchronized void setPingIntervalSeconds(long pingIntervalSeconds) {
+        if (pingIntervalSeconds < 0) {
+            throw TtsException.of("PING 间隔不能小于0");
+        }
+        this.pingIntervalSeconds = pingIntervalSeconds;
+        if (Objects.nonNull(okHttpClient)) {
+            okHttpClient = okHttpClient.newBuilder().pingInterval(pingIntervalSeconds, TimeUnit.SECONDS).build();
+        }
+    }
+
+    public int getMaxInFlightPerConnection() {
+        return maxInFlightPerConnection;
+    }
+
+    /**
+     * 设置单个连接上同时进行的合成请求上限，默认 1。
+     * 同一连接上的请求共用 speech.config，只有音频输出格式相同的请求才会复用同一连接
+     *
+     * @param maxInFlightPerConnection
+     */
+    public void setMaxInFlightPerConnection(int maxInFlightPerConnection) {
+        if (maxInFlightPerConnection < 1) {
+            throw TtsException.of("单连接并发数必须大于0");
+        }
+        this.maxInFlightPerConnection = maxInFlightPerConnection;
+        dispatch();
+    }
+
+    /**
+     * 发送合成请求，不等待合成结束；连接池中没有空闲会话时排队等待分派
+     *
+     * @param ssml
+     */
+    public void sendText(SSML ssml) {
+        synthesizeAsync(ssml).whenComplete((result, e) -> {
+            if (e != null) {
+                log.error("语音合成失败：" + ssml.getSynthesisText(), e);
             }
+        });
+    }
+
+    /**
+     * 异步合成语音，收到 turn.end 时写出音频文件并完成
+     *
+     * @param ssml
+     * @return 合成结果，包含音频数据、文件路径和耗时
+     */
+    public CompletableFuture<SynthesisResult> synthesizeAsync(SSML ssml) {
+        return submit(new SynthesisTask(ssml));
+    }
+
+    /**
+     * 同步合成语音，阻塞当前线程直到合成结束。
+     * 等待时不持有任何锁，适合在虚拟线程（见 {@link io.ikfly.util.VirtualThreads}）中大量并发调用
+     *
+     * @param ssml
+     * @return 合成结果
+     */
+    public SynthesisResult synthesize(SSML ssml) {
+        try {
+            return synthesizeAsync(ssml).join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
         }
+    }
 
-        @Override
-        public void onMessage(@NotNull WebSocket webSocket, @NotNull ByteString bytes) {
-            super.onMessage(webSocket, bytes);
-//            log.debug("onMessage bytes\r\n:{}", bytes.utf8());
-            int audioIndex = bytes.lastIndexOf(TtsConstants.AUDIO_START.getBytes(StandardCharsets.UTF_8)) + TtsConstants.AUDIO_START.length();
-            boolean audioContentType = bytes.lastIndexOf(TtsConstants.AUDIO_CONTENT_TYPE.getBytes(StandardCharsets.UTF_8)) + TtsConstants.AUDIO_CONTENT_TYPE.length() != -1;
-            if (audioIndex != -1 && audioContentType) {
+    /**
+     * 同步合成语音，超时后取消请求
+     *
+     * @param ssml
+     * @param timeout
+     * @param unit
+     * @return 合成结果
+     */
+    public SynthesisResult synthesize(SSML ssml, long timeout, TimeUnit unit) {
+        CompletableFuture<SynthesisResult> future = synthesizeAsync(ssml);
+        try {
+            return future.get(timeout, unit);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            throw TtsException.of("语音合成超时：" + ssml.getSynthesisText());
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw TtsException.of("语音合成被中断");
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static RuntimeException unwrap(Exception e) {
+        Throwable cause = Objects.nonNull(e.getCause()) ? e.getCause() : e;
+        return cause instanceof RuntimeException ? (RuntimeException) cause : TtsException.of(cause.getMessage());
+    }
+
+    /**
+     * 异步流式合成语音，音频帧到达时即回调 listener，不写出文件，未启用缓存时也不保留音频
+     *
+     * @param ssml
+     * @param listener 音频数据接收方
+     * @return 合成结果，不包含音频数据和文件路径
+     */
+    public CompletableFuture<SynthesisResult> synthesizeAsync(SSML ssml, AudioChunkListener listener) {
+        return submit(new SynthesisTask(ssml, Objects.requireNonNull(listener)));
+    }
+
+    /**
+     * 流式合成语音，返回的输入流随音频帧到达而可读，读到 -1 表示合成结束
+     *
+     * @param ssml
+     * @return
+     */
+    public InputStream synthesizeStream(SSML ssml) {
+        return synthesizeStream(ssml, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 流式合成语音，每次读取最多等待 timeout，超时抛出 {@link java.net.SocketTimeoutException} 并取消请求；
+     * 未读完就关闭输入流时同样取消请求
+     *
+     * @param ssml
+     * @param timeout 每次读取等待音频数据的最长时间，包括首个音频帧，0 表示一直等待
+     * @param unit
+     * @return
+     */
+    public AudioChunkInputStream synthesizeStream(SSML ssml, long timeout, TimeUnit unit) {
+        AudioChunkInputStream stream = new AudioChunkInputStream(timeout, unit);
+        stream.bind(synthesizeAsync(ssml, stream));
+        return stream;
+    }
+
+    /**
+     * 流式合成并切分为定长音频帧，用于电话场景：音频帧到达即切分交给 sink，首帧延迟与流式合成相同，不等待合成结束
+     *
+     * @param ssml        输出格式需为无容器的 pcm、A 律、μ 律，如 {@link OutputFormat#raw_8khz_8bit_mono_mulaw}
+     * @param frameMillis 帧时长，RTP 常用 20ms
+     * @param sink        帧接收方，可使用 {@link FrameRingBuffer} 交给媒体线程按节奏取出
+     * @return 合成结果，不包含音频数据和文件路径
+     */
+    public CompletableFuture<SynthesisResult> synthesizeFrames(SSML ssml, int frameMillis, FrameSink sink) {
+        return synthesizeAsync(ssml, new FrameSlicer(ssml.getOutputFormat(), frameMillis, sink));
+    }
+
+    /**
+     * 以 Reactive Streams 发布者的形式流式合成语音，每次订阅发起一次合成，音频帧按订阅者的需求量下发
+     *
+     * @param ssml
+     * @return
+     */
+    public Publisher<ByteBuffer> synthesizePublisher(SSML ssml) {
+        return new AudioPublisher(this, ssml);
+    }
+
+    /**
+     * 边合成边播放：音频帧到达即送入解码器，收到首个音频帧后即开始发声，不等待合成结束，也不写出文件。
+     * 按调用顺序在播放队列中依次播放，前一句播放时后一句已在合成和解码，句间没有停顿
+     *
+     * @param ssml 输出格式需为 mp3，或无容器的 pcm、A 律、μ 律（不需要解码）
+     * @return 播放结束时完成
+     */
+    public CompletableFuture<Void> play(SSML ssml) {
+        OutputFormat format = Optional.ofNullable(ssml.getOutputFormat()).orElse(OutputFormat.audio_24khz_48kbitrate_mono_mp3);
+        if (format.getCodec() == OutputFormat.Codec.MP3) {
+            return playbackQueue().enqueueMp3(synthesizeStream(ssml));
+        }
+        if (format.isWaveCompatible()) {
+            return playbackQueue().enqueue(new AudioInputStream(synthesizeStream(ssml), WavHeader.audioFormat(format), AudioSystem.NOT_SPECIFIED));
+        }
+        throw TtsException.of("边合成边播放不支持该格式：" + format.getValue());
+    }
+
+    private CompletableFuture<SynthesisResult> submit(SynthesisTask task) {
+        if (isClose) throw TtsException.of("ws 已关闭！");
+        // 命中缓存时写文件、播放也是异步的，同样需要登记，close 时等待其结束
+        unfinishedTasks.add(task);
+        task.getFuture().whenComplete((result, e) -> {
+            unfinishedTasks.remove(task);
+            Throwable cause = e instanceof CompletionException && Objects.nonNull(e.getCause()) ? e.getCause() : e;
+            if (cause instanceof CancellationException) {
+                metrics.cancelled(metricsFormat(task), metricsVoice(task));
+            } else if (cause != null) {
+                metrics.failed(metricsFormat(task), metricsVoice(task), cause);
+            }
+        });
+        AudioCache cache = audioCache;
+        if (Objects.nonNull(cache)) {
+            OutputFormat format = Optional.ofNullable(task.getSsml().getOutputFormat()).orElse(OutputFormat.audio_24khz_48kbitrate_mono_mp3);
+            String key = AudioCache.key(task.getSsml(), format);
+            // 流式请求只需把音频交给 listener，读取只读视图，内存映射缓存不拷贝；其余请求的结果中需要音频数据
+            ByteString audio = null;
+            ByteBuffer view = null;
+            try {
+                if (task.isStreaming()) {
+                    view = cache.getBuffer(key, format);
+                } else {
+                    audio = cache.get(key, format);
+                }
+            } catch (RuntimeException e) {
+                task.fail(e);
+                throw e;
+            }
+            if (Objects.nonNull(audio) || Objects.nonNull(view)) {
+                log.debug("命中缓存：{}", task.getSsml().getSynthesisText());
+                task.setOutputFormat(format);
+                task.onSend();
                 try {
-                    audioBuffer.write(bytes.substring(audioIndex));
-                } catch (Exception e) {
-                    log.error("onMessage Error," + e.getMessage(), e);
+                    task.onCachedAudio(Objects.nonNull(view) ? view : audio.asByteBuffer());
+                    complete(task, audio, cachedFile(key, task, audio));
+                } catch (RuntimeException e) {
+                    task.fail(e);
                 }
+                return task.getFuture();
             }
+            // 流式请求也需要收集音频用于写入缓存
+            task.setCollectAudio(true);
         }
-    };
+        pendingTasks.offer(task);
+        dispatch();
+        return task.getFuture();
+    }
+
     /**
-     * 发送合成请求
+     * 预热连接：在前 connections 个会话上建立连接并发送 speech.config，之后后台健康检查保持这些连接，
+     * 断开或到期回收后立即重新连接，首个请求不再等待 TLS 握手、ws 升级和配置
      *
-     * @param ssml
+     * @param connections 预热的连接数，超过连接池大小时按连接池大小
+     * @param format      预热连接使用的输出格式，为空时使用默认格式
+     * @return 所有预热连接握手完成时完成
      */
-    public void sendText(SSML ssml) {
+    public CompletableFuture<Void> warmUp(int connections, OutputFormat format) {
         if (isClose) throw TtsException.of("ws 已关闭！");
-        while (synthesising) {
-            log.info("空转等待上一个语音合成");
-            Tools.sleep(1);
+        if (connections < 1) {
+            throw TtsException.of("预热连接数必须大于0");
         }
-        synthesising = true;
-        if (Objects.nonNull(ssml.getOutputFormat()) && !ssml.getOutputFormat().equals(outputFormat)) {
-            sendConfig(ssml.getOutputFormat());
+        int count = Math.min(connections, sessions.size());
+        warmConnections = count;
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[count];
+        // 与 dispatch 互斥，避免切换输出格式时有请求正在发送
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                futures[i] = sessions.get(i).connect(format);
+            }
         }
-        log.debug("ssml:{}", ssml);
-        if (!getOrCreateWs().send(ssml.toString())) {
-            throw TtsException.of("语音合成请求发送失败...");
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * 后台健康检查：回收到期的空闲连接，重新连接需要保持预热的会话
+     */
+    private synchronized void healthCheck() {
+        if (isClose) {
+            return;
+        }
+        long maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(maxConnectionAgeMillis);
+        int warm = warmConnections;
+        for (int i = 0; i < sessions.size(); i++) {
+            try {
+                sessions.get(i).maintain(maxAgeNanos, i < warm);
+            } catch (RuntimeException e) {
+                log.warn("session-{} 健康检查失败：{}", i, e.getMessage());
+            }
         }
-        currentText = ssml.getSynthesisText();
-        usePlayer = ssml.getUsePlayer();
-        outputFileName = ssml.getOutputFileName();
     }
 
     public void close(){
-        while (synthesising) {
-            log.info("空转等待语音合成...");
-            Tools.sleep(1);
+        isClose = true;
+        // 等待所有合成请求结束
+        CompletableFuture<?>[] futures = unfinishedTasks.stream()
+                .map(SynthesisTask::getFuture)
+                .toArray(CompletableFuture[]::new);
+        if (futures.length > 0) {
+            log.info("等待语音合成结束...");
+            CompletableFuture.allOf(futures).handle((v, e) -> v).join();
+        }
+        closeLatch = new CountDownLatch((int) sessions.stream().filter(TtsSession::isConnected).count());
+        sessions.forEach(TtsSession::close);
+        try {
+            if (!closeLatch.await(10, TimeUnit.SECONDS)) {
+                log.warn("等待 ws 关闭超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        if (Objects.nonNull(ws)) {
-            ws.close(1000, "bye");
-            log.info("ws closing...");
+        reconnectManager.shutdown();
+        audioFileWriter.shutdown();
+        synchronized (this) {
+            if (Objects.nonNull(playbackQueue)) {
+                // 已排队的播放继续进行
+                playbackQueue.shutdown();
+            }
         }
         if(Objects.nonNull(okHttpClient)){
             okHttpClient.dispatcher().executorService().shutdown();   //清除并关闭线程池
             okHttpClient.connectionPool().evictAll();                 //清除并关闭连接池
         }
-        while (!isClose){
-            // waiting close...
-        };
     }
 
     /**
-     * 获取或创建 ws 连接
+     * 把排队的合成请求按顺序分派给有空闲容量的会话
+     */
+    private synchronized void dispatch() {
+        SynthesisTask task;
+        while ((task = pendingTasks.peek()) != null) {
+            if (task.isDone()) {
+                // 已取消的请求不再发送
+                pendingTasks.poll();
+                continue;
+            }
+            TtsSession session = selectSession(task);
+            if (session == null) {
+                return;
+            }
+            pendingTasks.poll();
+            session.send(task);
+        }
+    }
+
+    /**
+     * 选择在途请求最少且可以接收该请求的会话
      *
-     * @return
+     * @param task
+     * @return 没有可用会话时返回 null
+     */
+    private TtsSession selectSession(SynthesisTask task) {
+        TtsSession selected = null;
+        for (TtsSession session : sessions) {
+            if (session.canAccept(task, maxInFlightPerConnection)
+                    && (selected == null || session.getInFlight() < selected.getInFlight())) {
+                selected = session;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 会话上的一个请求结束（或中止），分派下一个请求
+     *
+     * @param session
+     */
+    void release(TtsSession session) {
+        dispatch();
+    }
+
+    /**
+     * 连接断开时的在途请求：未超过重发次数的按提交顺序放回队首优先重发，其余的以 cause 失败
+     *
+     * @param tasks
+     * @param cause
+     */
+    void retry(List<SynthesisTask> tasks, RuntimeException cause) {
+        tasks.sort(Comparator.comparingLong(SynthesisTask::getSubmitNanos).reversed());
+        for (SynthesisTask task : tasks) {
+            if (task.isDone()) {
+                continue;
+            }
+            if (task.getRetries() >= reconnectManager.getMaxRetries() || !task.prepareRetry()) {
+                task.fail(cause);
+                continue;
+            }
+            log.info("重发语音合成请求（第 {} 次）：{}", task.getRetries(), task.getSsml().getSynthesisText());
+            metrics.retried(metricsFormat(task), metricsVoice(task));
+            pendingTasks.offerFirst(task);
+        }
+    }
+
+    ReconnectManager reconnectManager() {
+        return reconnectManager;
+    }
+
+    /**
+     * 请求已在会话上发送，输出格式已确定：需要边合成边写文件或字幕时创建文件
+     *
+     * @param task
+     */
+    void onSend(SynthesisTask task) {
+        metrics.queued(task.getOutputFormat(), metricsVoice(task), System.nanoTime() - task.getSubmitNanos());
+        SubtitleFormat subtitle = subtitleFormat;
+        if (Objects.nonNull(subtitle) && !task.isStreaming() && saveAudioFile) {
+            task.setSubtitle(new SubtitleWriter(audioFileWriter, subtitleFile(subtitle, task.outputFileName()),
+                    subtitle, task.getWordBoundaries(), subtitleMaxCueLength));
+        }
+        if (incrementalFileWrite && !task.isStreaming() && (saveAudioFile || task.getSsml().getUsePlayer())) {
+            task.setIncrementalFile(new IncrementalAudioFile(audioFileWriter, audioFile(task.getOutputFormat(), task.outputFileName()), task.getOutputFormat()));
+            // 整段音频只在需要写入缓存时保留
+            task.setCollectAudio(Objects.nonNull(audioCache));
+        }
+    }
+
+    /**
+     * 音频流结束：写入缓存，非流式请求在 I/O 线程上写出文件并按需播放，然后完成请求
+     *
+     * @param task
+     */
+    void onTurnEnd(SynthesisTask task) {
+        long now = System.nanoTime();
+        TtsMetrics current = metrics;
+        VoiceEnum voice = metricsVoice(task);
+        if (task.getFirstAudioNanos() != 0) {
+            current.firstAudio(task.getOutputFormat(), voice, task.getFirstAudioNanos() - task.getSendNanos());
+        }
+        current.turnEnd(task.getOutputFormat(), voice, now - task.getSendNanos(), task.getAudioBytes());
+        ByteString audio = task.isCollectAudio() ? task.readAudio() : null;
+        AudioCache cache = audioCache;
+        if (Objects.nonNull(cache) && Objects.nonNull(audio) && audio.size() > 0) {
+            cache.put(AudioCache.key(task.getSsml(), task.getOutputFormat()), task.getOutputFormat(), audio);
+        }
+        complete(task, audio, null);
+    }
+
+    /**
+     * 命中缓存时可复用的音频文件：之前为同一 key 写出，仍然存在、大小一致，且未指定其他文件名
+     *
+     * @return 没有可复用的文件时返回 null
      */
-    private synchronized WebSocket getOrCreateWs() {
-        if (Objects.nonNull(ws)) {
-            return ws;
+    private File cachedFile(String key, SynthesisTask task, ByteString audio) {
+        if (task.isStreaming() || (!saveAudioFile && !task.getSsml().getUsePlayer())) {
+            return null;
+        }
+        File file;
+        synchronized (cachedFiles) {
+            file = cachedFiles.get(key);
+        }
+        if (Objects.isNull(file)) {
+            return null;
         }
+        String fileName = task.getSsml().getOutputFileName();
+        if (fileName != null && !fileName.isEmpty()
+                && !file.getAbsoluteFile().equals(audioFile(task.getOutputFormat(), fileName).getAbsoluteFile())) {
+            return null;
+        }
+        OutputFormat format = task.getOutputFormat();
+        long size = audio.size() + (format.isWaveCompatible() ? WavHeader.of(format, audio.size()).size() : 0);
+        return file.isFile() && file.length() == size ? file : null;
+    }
 
-        String url = TtsConstants.EDGE_SPEECH_WSS +
-                "?Retry-After=200&TrustedClientToken=" + TtsConstants.TRUSTED_CLIENT_TOKEN +
-                "&ConnectionId=" + Tools.getRandomId()
-                +"&Sec-MS-GEC=" + Tools.generateSecMsGecToken(TtsConstants.TRUSTED_CLIENT_TOKEN)
-                +"&Sec-MS-GEC-Version=" + TtsConstants.SEC_MS_GEC_VERSION;
-        String origin = TtsConstants.EDGE_SPEECH_ORIGIN;
+    /**
+     * @param cachedFile 命中缓存时可复用的音频文件，不为空时不再写出
+     */
+    private void complete(SynthesisTask task, ByteString audio, File cachedFile) {
+        if (task.isStreaming()) {
+            task.complete(null, null);
+            return;
+        }
+        if (!saveAudioFile && !task.getSsml().getUsePlayer()) {
+            task.complete(audio, null);
+            return;
+        }
+        IncrementalAudioFile incrementalFile = task.getIncrementalFile();
+        CompletableFuture<File> written;
+        if (Objects.nonNull(cachedFile)) {
+            written = CompletableFuture.completedFuture(cachedFile);
+        } else {
+            written = Objects.nonNull(incrementalFile)
+                    ? incrementalFile.finish()
+                    : audioFileWriter.write(audioFile(task.getOutputFormat(), task.outputFileName()),
+                    task.getOutputFormat().isWaveCompatible() ? WavHeader.of(task.getOutputFormat(), audio.size()) : null, audio);
+            if (Objects.nonNull(audioCache) && Objects.nonNull(audio) && audio.size() > 0) {
+                String key = AudioCache.key(task.getSsml(), task.getOutputFormat());
+                written = written.thenApply(file -> {
+                    synchronized (cachedFiles) {
+                        cachedFiles.put(key, file);
+                    }
+                    return file;
+                });
+            }
+        }
+        SubtitleWriter subtitle = task.getSubtitle();
+        if (Objects.nonNull(subtitle)) {
+            written = written.thenCombine(subtitle.finish(), (audioFile, subtitleFile) -> audioFile);
+        }
+        if (task.getSsml().getUsePlayer()) {
+            // 在播放队列中播放，播放完后完成请求，不阻塞 I/O 线程上其他文件的写出
+            written = written.thenCompose(file -> playbackQueue().enqueue(file.getAbsolutePath())
+                    .handle((v, e) -> {
+                        if (e != null) {
+                            log.error(file.getAbsolutePath() + ":音频播放失败," + e.getMessage(), e);
+                        }
+                        return file;
+                    }));
+        }
+        written.thenAccept(file -> task.complete(audio, file.getAbsolutePath())).exceptionally(e -> {
+            task.fail(e instanceof CompletionException && Objects.nonNull(e.getCause()) ? e.getCause() : e);
+            return null;
+        });
+    }
 
-        Request request = new Request.Builder()
-                .url(url)
-                .addHeader("User-Agent", TtsConstants.UA)
-                .addHeader("Origin", origin)
-                .build();
-        ws = getOkHttpClient().newWebSocket(request, webSocketListener);
-        sendConfig(outputFormat);
-        return ws;
+    /**
+     * 指标中的输出格式：已发送的请求取连接上生效的格式，否则取请求中的格式
+     */
+    private static OutputFormat metricsFormat(SynthesisTask task) {
+        OutputFormat format = task.getOutputFormat();
+        return Objects.nonNull(format) ? format
+                : Optional.ofNullable(task.getSsml().getOutputFormat()).orElse(OutputFormat.audio_24khz_48kbitrate_mono_mp3);
+    }
+
+    private static VoiceEnum metricsVoice(SynthesisTask task) {
+        return Optional.ofNullable(task.getSsml().getVoice()).orElse(VoiceEnum.zh_CN_XiaoxiaoNeural);
+    }
+
+    void onSessionClosed(TtsSession session) {
+        CountDownLatch latch = closeLatch;
+        if (Objects.nonNull(latch)) {
+            latch.countDown();
+        }
     }
 
-    private OkHttpClient getOkHttpClient() {
+    synchronized OkHttpClient getOkHttpClient() {
         if (okHttpClient == null) {
             okHttpClient = new OkHttpClient.Builder()
-                    .pingInterval(20, TimeUnit.SECONDS) // 设置 PING 帧发送间隔
+                    .pingInterval(pingIntervalSeconds, TimeUnit.SECONDS) // 设置 PING 帧发送间隔
                     .build();
+            // 首次建立连接时开始后台健康检查
+            reconnectManager.scheduleAtFixedRate(this::healthCheck, healthCheckIntervalMillis);
         }
         return okHttpClient;
     }
 
+    private synchronized PlaybackQueue playbackQueue() {
+        if (Objects.isNull(playbackQueue)) {
+            playbackQueue = new PlaybackQueue();
+        }
+        return playbackQueue;
+    }
+
+    AudioFileWriter audioFileWriter() {
+        return audioFileWriter;
+    }
 
     /**
-     * 发送下次音频输出配置
+     * 音频文件：保存目录 + 文件名 + 音频格式后缀，pcm、A 律、μ 律为 wav
      *
-     * @param outputFormat
+     * @param format   音频输出格式
+     * @param fileName 文件名
      * @return
      */
-    private void sendConfig(OutputFormat outputFormat) {
-        SpeechConfig speechConfig = SpeechConfig.of(outputFormat);
-        log.debug("audio config:{}", speechConfig);
-        if (!getOrCreateWs().send(speechConfig.toString())) {
-            throw TtsException.of("语音输出格式配置失败...");
-        }
-        this.outputFormat = speechConfig.getOutputFormat();
+    File audioFile(OutputFormat format, String fileName) {
+        return new File(Optional.ofNullable(baseSavePath).orElse("") + fileName + "." + format.getFileSuffix());
     }
 
-
     /**
-     * 写出音频
+     * 字幕文件：与音频文件同目录、同名，后缀为字幕格式
      *
-     * @param format   音频输出格式
-     * @param data     字节流
+     * @param format   字幕格式
      * @param fileName 文件名
      * @return
      */
-    private String writeAudio(OutputFormat format, ByteString data, String fileName) {
-        try {
-            byte[] audioBuffer = data.toByteArray();
-            String[] split = format.getValue().split("-");
-            String suffix = split[split.length - 1];
-            // write  file
-            String outputFileName = Optional.ofNullable(baseSavePath).orElse("") + fileName + "." + suffix;
-            File outputAudioFile = new File(outputFileName);
-            if (outputAudioFile.exists()) {
-                outputAudioFile.delete();
-            }
-            FileOutputStream fstream = new FileOutputStream(outputAudioFile);
-            fstream.write(audioBuffer);
-            fstream.flush();
-            fstream.close();
-            return outputAudioFile.getAbsolutePath();
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw TtsException.of("音频文件写出异常，" + e.getMessage());
-        }
+    File subtitleFile(SubtitleFormat format, String fileName) {
+        return new File(Optional.ofNullable(baseSavePath).orElse("") + fileName + "." + format.getSuffix());
     }
 }
@@ -0,0 +1,413 @@
+package io.ikfly.service;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.constant.TtsConstants;
+import io.ikfly.exceptions.TtsException;
+import io.ikfly.model.AudioFrame;
+import io.ikfly.model.SSML;
+import io.ikfly.model.SpeechConfig;
+import io.ikfly.util.Tools;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接池中的单个 ws 会话，持有独立的音频输出配置和音频缓冲
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+class TtsSession {
+
+    public static final Logger log = LoggerFactory.getLogger(TtsSession.class);
+
+    private final TTSService service;
+    /**
+     * 会话编号，仅用于日志
+     */
+    private final int id;
+
+    /**
+     * 正使用的音频输出格式
+     */
+    private volatile OutputFormat outputFormat;
+    /**
+     * 正在进行的合成请求，按 X-RequestId 路由，为空表示会话空闲
+     */
+    private final Map<String, SynthesisTask> tasks = new ConcurrentHashMap<>();
+    private volatile WebSocket ws;
+    /**
+     * 连续连接失败次数，连接成功后清零
+     */
+    private int consecutiveFailures;
+    /**
+     * 退避结束时间，System.nanoTime()，在此之前不在本会话上建立连接
+     */
+    private volatile long reconnectAtNanos;
+    /**
+     * 当前连接的建立时间，System.nanoTime()
+     */
+    private long connectedNanos;
+    /**
+     * 当前连接握手完成时完成，握手失败时异常完成
+     */
+    private volatile CompletableFuture<Void> opened = CompletableFuture.completedFuture(null);
+
+    /**
+     * 每个 ws 连接一个监听器，连接内的消息由同一读线程回调
+     */
+    private class SessionListener extends WebSocketListener {
+        /**
+         * 复用的二进制帧解码器
+         */
+        private final AudioFrame frame = new AudioFrame();
+        private final CompletableFuture<Void> opened;
+
+        SessionListener(CompletableFuture<Void> opened) {
+            this.opened = opened;
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket, Response response) {
+            super.onOpen(webSocket, response);
+            long nanos;
+            synchronized (TtsSession.this) {
+                consecutiveFailures = 0;
+                nanos = System.nanoTime() - connectedNanos;
+            }
+            service.getMetrics().connected(nanos);
+            opened.complete(null);
+        }
+
+        @Override
+        public void onClosed(WebSocket webSocket, int code, String reason) {
+            super.onClosed(webSocket, code, reason);
+            log.debug("session-{} onClosed:{} - {}", id, code, reason);
+            opened.completeExceptionally(TtsException.of("ws 连接已关闭"));
+            disconnect(webSocket);
+            service.onSessionClosed(TtsSession.this);
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            super.onClosing(webSocket, code, reason);
+            log.debug("session-{} onClosing:{} - {}", id, code, reason);
+            disconnect(webSocket);
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            super.onFailure(webSocket, t, response);
+            log.debug("session-{} onFailure:{} - {}", id, t.getMessage(), response, t);
+            opened.completeExceptionally(t);
+            backoff(webSocket, t);
+            disconnect(webSocket);
+            service.onSessionClosed(TtsSession.this);
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            super.onMessage(webSocket, text);
+//            log.debug("onMessage text\r\n:{}", text);
+            SynthesisTask current = findTask(Tools.getHeader(text, TtsConstants.REQUEST_ID_HEADER));
+            if (current == null) {
+                return;
+            }
+            // 按 Path 头部判断消息类型，元数据正文中可能含有 turn.end 等字样
+            String path = Tools.getHeader(text, TtsConstants.PATH_HEADER);
+            if (TtsConstants.AUDIO_METADATA.equals(path)) {
+                int body = text.indexOf("\r\n\r\n");
+                if (body >= 0) {
+                    current.onMetadata(text.substring(body + 4));
+                }
+            } else if (TtsConstants.TURN_START.equals(path)) {
+                current.onTurnStart();
+            } else if (TtsConstants.TURN_END.equals(path)) {
+                try {
+                    service.onTurnEnd(current);
+                } catch (RuntimeException e) {
+                    current.fail(e);
+                } finally {
+                    release(current);
+                }
+            }
+        }
+
+        @Override
+        public void onMessage(@NotNull WebSocket webSocket, @NotNull ByteString bytes) {
+            super.onMessage(webSocket, bytes);
+//            log.debug("onMessage bytes\r\n:{}", bytes.utf8());
+            SynthesisTask current = null;
+            try {
+                frame.decode(bytes);
+                if (!frame.hasAudio()) {
+                    return;
+                }
+                current = findTask(frame.getRequestId());
+                if (current != null) {
+                    current.onAudio(frame);
+                }
+            } catch (Exception e) {
+                log.error("onMessage Error," + e.getMessage(), e);
+                if (current != null) {
+                    current.fail(e);
+                    release(current);
+                }
+            }
+        }
+    }
+
+    TtsSession(TTSService service, int id) {
+        this.service = service;
+        this.id = id;
+        // nanoTime 的起点是任意的，可能为负，不能用 0 表示不在退避期
+        this.reconnectAtNanos = System.nanoTime();
+    }
+
+    int getId() {
+        return id;
+    }
+
+    boolean isSynthesising() {
+        return !tasks.isEmpty();
+    }
+
+    int getInFlight() {
+        return tasks.size();
+    }
+
+    boolean isConnected() {
+        return Objects.nonNull(ws);
+    }
+
+    /**
+     * 是否处于断线后的退避期
+     */
+    boolean isBackingOff() {
+        return reconnectAtNanos - System.nanoTime() > 0;
+    }
+
+    /**
+     * 是否可以在本会话上发送该请求：未超过并发上限，且与在途请求的音频输出格式一致（ speech.config 对整个连接生效）
+     *
+     * @param task
+     * @param maxInFlight 单个连接上同时进行的合成请求上限
+     * @return
+     */
+    boolean canAccept(SynthesisTask task, int maxInFlight) {
+        if (isBackingOff()) {
+            return false;
+        }
+        if (tasks.isEmpty()) {
+            return true;
+        }
+        if (tasks.size() >= maxInFlight) {
+            return false;
+        }
+        OutputFormat format = task.getSsml().getOutputFormat();
+        return format == null || format.equals(outputFormat);
+    }
+
+    /**
+     * 在本会话上发送合成请求，调用方需先通过 {@link #canAccept(SynthesisTask, int)} 判断
+     *
+     * @param task
+     */
+    void send(SynthesisTask task) {
+        tasks.put(task.getRequestId(), task);
+        SSML ssml = task.getSsml();
+        try {
+            synchronized (this) {
+                if (Objects.nonNull(ssml.getOutputFormat()) && !ssml.getOutputFormat().equals(outputFormat)) {
+                    sendConfig(ssml.getOutputFormat());
+                }
+                getOrCreateWs();
+                task.setOutputFormat(outputFormat);
+            }
+            service.onSend(task);
+            log.debug("session-{} ssml:{}", id, ssml);
+            task.onSend();
+            WebSocket webSocket = getOrCreateWs();
+            String context = service.getBackend().synthesisContext(task.getRequestId(), task.getOutputFormat());
+            if (Objects.nonNull(context) && !webSocket.send(context)) {
+                throw TtsException.of("语音合成请求发送失败...");
+            }
+            if (!webSocket.send(ssml.render(task.getRequestId()))) {
+                throw TtsException.of("语音合成请求发送失败...");
+            }
+        } catch (RuntimeException e) {
+            task.fail(e);
+            release(task);
+        }
+    }
+
+    /**
+     * 预先建立连接并发送 speech.config，空闲时按 format 切换输出格式
+     *
+     * @param format 为空时使用当前格式
+     * @return 握手完成时完成
+     */
+    synchronized CompletableFuture<Void> connect(OutputFormat format) {
+        if (!tasks.isEmpty()) {
+            return opened;
+        }
+        if (Objects.isNull(ws)) {
+            if (Objects.nonNull(format)) {
+                outputFormat = format;
+            }
+            getOrCreateWs();
+        } else if (Objects.nonNull(format) && !format.equals(outputFormat)) {
+            sendConfig(format);
+        }
+        return opened;
+    }
+
+    /**
+     * 后台维护：空闲连接超过 maxAgeNanos 时关闭（在 Sec-MS-GEC 令牌过期前换用新令牌），
+     * 需要保持预热的会话在断开或回收后立即重新连接
+     *
+     * @param maxAgeNanos 连接最长使用时间
+     * @param keepWarm    是否保持连接
+     */
+    synchronized void maintain(long maxAgeNanos, boolean keepWarm) {
+        WebSocket current = ws;
+        if (Objects.nonNull(current) && tasks.isEmpty() && System.nanoTime() - connectedNanos > maxAgeNanos) {
+            log.debug("session-{} 回收空闲连接", id);
+            ws = null;
+            current.close(1000, "recycle");
+        }
+        if (Objects.isNull(ws) && keepWarm && !isBackingOff()) {
+            getOrCreateWs();
+        }
+    }
+
+    void close() {
+        WebSocket webSocket = ws;
+        if (Objects.nonNull(webSocket)) {
+            webSocket.close(1000, "bye");
+            log.info("session-{} ws closing...", id);
+        }
+    }
+
+    /**
+     * 按 X-RequestId 查找请求；消息中没有该头部且只有一个在途请求时，归属于该请求
+     *
+     * @param requestId
+     * @return
+     */
+    private SynthesisTask findTask(String requestId) {
+        if (requestId != null) {
+            return tasks.get(requestId);
+        }
+        if (tasks.size() == 1) {
+            Iterator<SynthesisTask> iterator = tasks.values().iterator();
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+        return null;
+    }
+
+    /**
+     * 获取或创建 ws 连接，连接地址和令牌由服务端实现生成
+     *
+     * @return
+     */
+    private synchronized WebSocket getOrCreateWs() {
+        if (Objects.nonNull(ws)) {
+            return ws;
+        }
+
+        Request request = service.getBackend().connectRequest();
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        opened = future;
+        connectedNanos = System.nanoTime();
+        ws = service.getOkHttpClient().newWebSocket(request, new SessionListener(future));
+        sendConfig(outputFormat);
+        return ws;
+    }
+
+    /**
+     * 发送下次音频输出配置
+     *
+     * @param outputFormat
+     * @return
+     */
+    private void sendConfig(OutputFormat outputFormat) {
+        OutputFormat format = SpeechConfig.of(outputFormat).getOutputFormat();
+        WebSocket webSocket = getOrCreateWs();
+        for (String message : service.getBackend().configMessages(format)) {
+            log.debug("session-{} audio config:{}", id, message);
+            if (!webSocket.send(message)) {
+                throw TtsException.of("语音输出格式配置失败...");
+            }
+        }
+        this.outputFormat = format;
+    }
+
+    /**
+     * 连接异常断开，按连续失败次数推迟本会话的下次连接
+     *
+     * @param webSocket
+     * @param cause
+     */
+    private void backoff(WebSocket webSocket, Throwable cause) {
+        ReconnectManager reconnect = service.reconnectManager();
+        int failures;
+        long delay;
+        synchronized (this) {
+            if (ws != webSocket) {
+                return;
+            }
+            failures = ++consecutiveFailures;
+            delay = reconnect.backoffMillis(failures);
+            reconnectAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        }
+        service.getMetrics().connectionFailed(cause);
+        log.warn("session-{} 连接异常，{}ms 后重新连接（连续失败 {} 次）", id, delay, failures);
+        reconnect.schedule(delay);
+    }
+
+    /**
+     * 连接断开，丢弃当前连接；在途请求交回连接池重发，下次使用时重新建立连接
+     *
+     * @param webSocket
+     */
+    private void disconnect(WebSocket webSocket) {
+        synchronized (this) {
+            if (ws != webSocket) {
+                return;
+            }
+            ws = null;
+        }
+        List<SynthesisTask> aborted = new ArrayList<>();
+        for (SynthesisTask current : tasks.values()) {
+            if (tasks.remove(current.getRequestId(), current)) {
+                log.warn("session-{} 连接断开，当前语音合成中止：{}", id, current.getSsml().getSynthesisText());
+                aborted.add(current);
+            }
+        }
+        if (!aborted.isEmpty()) {
+            service.retry(aborted, TtsException.of("ws 连接断开，语音合成中止"));
+            service.release(this);
+        }
+    }
+
+    private void release(SynthesisTask finished) {
+        if (tasks.remove(finished.getRequestId(), finished)) {
+            service.release(this);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.ikfly.telephony;
+
+import io.ikfly.exceptions.TtsException;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定长帧环形缓冲：ws 读线程写入，媒体线程按 20ms 节奏取出。
+ * 容量在创建时一次分配，之后不再扩容，{@link #reset()} 后可用于下一次合成；
+ * 合成速度通常快于实时，容量需能容纳媒体线程来不及取出的部分，写满时按 {@link OverflowPolicy} 处理
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class FrameRingBuffer implements FrameSink {
+
+    /**
+     * 写满时的处理方式
+     */
+    public enum OverflowPolicy {
+        /**
+         * 丢弃最早的帧，适合实时性优先、可以跳过一段音频的场景
+         */
+        DROP_OLDEST,
+        /**
+         * 合成请求失败，已缓冲的帧仍可取出
+         */
+        FAIL
+    }
+
+    private final int frameBytes;
+    private final byte[] ring;
+    /**
+     * 容量，单位为帧
+     */
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private int head;
+    private int size;
+    private long dropped;
+    private boolean complete;
+    private Throwable error;
+
+    /**
+     * 写满时合成请求失败
+     *
+     * @param frameBytes 每帧字节数，见 {@link FrameSlicer#frameBytes}
+     * @param frames     容量，单位为帧；8kHz μ 律 20ms 一帧时 3000 帧为 60 秒，约 470KB
+     */
+    public FrameRingBuffer(int frameBytes, int frames) {
+        this(frameBytes, frames, OverflowPolicy.FAIL);
+    }
+
+    /**
+     * @param frameBytes 每帧字节数，见 {@link FrameSlicer#frameBytes}
+     * @param frames     容量，单位为帧
+     * @param policy     写满时的处理方式
+     * @throws IllegalArgumentException 总字节数超出 int 范围
+     */
+    public FrameRingBuffer(int frameBytes, int frames, OverflowPolicy policy) {
+        if (frameBytes < 1 || frames < 1 || policy == null) {
+            throw TtsException.of("帧缓冲参数设置错误");
+        }
+        int bytes;
+        try {
+            bytes = Math.multiplyExact(frames, frameBytes);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("帧缓冲容量过大：" + frames + " 帧 × " + frameBytes + " 字节超出 int 范围");
+        }
+        this.frameBytes = frameBytes;
+        this.capacity = frames;
+        this.policy = policy;
+        this.ring = new byte[bytes];
+    }
+
+    @Override
+    public synchronized void onFrame(ByteBuffer frame, long index) {
+        if (complete) {
+            return;
+        }
+        if (size == capacity) {
+            if (policy == OverflowPolicy.FAIL) {
+                TtsException e = TtsException.of("帧缓冲已满：" + capacity + " 帧");
+                error = e;
+                complete = true;
+                notifyAll();
+                // 抛出后合成请求失败，不再接收后续音频
+                throw e;
+            }
+            head = (head + 1) % capacity;
+            size--;
+            dropped++;
+        }
+        int tail = (head + size) % capacity;
+        frame.get(ring, tail * frameBytes, Math.min(frame.remaining(), frameBytes));
+        size++;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        complete = true;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void onError(Throwable t) {
+        if (error == null) {
+            error = t;
+        }
+        complete = true;
+        notifyAll();
+    }
+
+    /**
+     * 取出一帧，没有可用的帧时立即返回
+     *
+     * @param dst 长度不小于每帧字节数
+     * @return 是否取到；未取到且 {@link #isFinished()} 为 false 时，媒体线程可先发送静音帧
+     */
+    public synchronized boolean poll(byte[] dst) {
+        if (size == 0) {
+            return false;
+        }
+        System.arraycopy(ring, head * frameBytes, dst, 0, frameBytes);
+        head = (head + 1) % capacity;
+        size--;
+        return true;
+    }
+
+    /**
+     * 取出一帧，没有可用的帧时等待
+     *
+     * @param dst     长度不小于每帧字节数
+     * @param timeout
+     * @param unit
+     * @return 是否取到；超时或音频已全部取出时返回 false
+     * @throws InterruptedException
+     */
+    public synchronized boolean take(byte[] dst, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (size == 0 && !complete) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return poll(dst);
+    }
+
+    /**
+     * 音频已结束（或失败）且全部取出
+     */
+    public synchronized boolean isFinished() {
+        return complete && size == 0;
+    }
+
+    /**
+     * 合成失败或缓冲溢出的原因，未失败时为 null
+     */
+    public synchronized Throwable getError() {
+        return error;
+    }
+
+    /**
+     * 当前缓冲的帧数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * {@link OverflowPolicy#DROP_OLDEST} 时因写满丢弃的帧数
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * 清空并重置状态，用于下一次合成，不重新分配内存
+     */
+    public synchronized void reset() {
+        head = 0;
+        size = 0;
+        dropped = 0;
+        complete = false;
+        error = null;
+    }
+
+    public int getFrameBytes() {
+        return frameBytes;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
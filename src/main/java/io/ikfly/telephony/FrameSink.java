@@ -0,0 +1,34 @@
+package io.ikfly.telephony;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 接收切分好的定长音频帧，如交给媒体服务器打包为 RTP
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public interface FrameSink {
+
+    /**
+     * 收到一帧音频，在 ws 读线程上回调，不要在其中做耗时操作
+     *
+     * @param frame 帧数据，底层缓冲会被复用，只在回调期间有效，需要保留时复制
+     * @param index 帧序号，从 0 开始；RTP 时间戳可按 index * 每帧采样数计算
+     */
+    void onFrame(ByteBuffer frame, long index);
+
+    /**
+     * 音频结束，最后一帧已回调
+     */
+    default void onComplete() {
+    }
+
+    /**
+     * 合成失败
+     *
+     * @param t
+     */
+    default void onError(Throwable t) {
+    }
+}
@@ -0,0 +1,141 @@
+package io.ikfly.telephony;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.exceptions.TtsException;
+import io.ikfly.model.AudioFrame;
+import io.ikfly.model.SynthesisResult;
+import io.ikfly.service.AudioFrameListener;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 把流式收到的音频切分为定长帧：音频帧到达即切分，不等待合成结束。
+ * 8kHz μ 律、A 律每 20ms 一帧 160 字节，可直接作为 PCMU、PCMA 的 RTP 负载；最后不足一帧的部分用静音补齐。
+ * 音频数据从 ws 消息直接复制到复用的帧缓冲，不为每个 ws 帧分配中间数组
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class FrameSlicer implements AudioFrameListener {
+
+    /**
+     * RTP 常用的帧时长
+     */
+    public static final int DEFAULT_FRAME_MILLIS = 20;
+
+    private final FrameSink sink;
+    private final byte silence;
+    /**
+     * 复用的帧缓冲
+     */
+    private final byte[] frame;
+    private final ByteBuffer frameView;
+    private int filled;
+    private long index;
+
+    /**
+     * @param format 无容器的 pcm、A 律、μ 律格式，需与合成请求的输出格式一致
+     * @param sink
+     */
+    public FrameSlicer(OutputFormat format, FrameSink sink) {
+        this(format, DEFAULT_FRAME_MILLIS, sink);
+    }
+
+    /**
+     * @param format      无容器的 pcm、A 律、μ 律格式，需与合成请求的输出格式一致
+     * @param frameMillis 帧时长
+     * @param sink
+     */
+    public FrameSlicer(OutputFormat format, int frameMillis, FrameSink sink) {
+        if (format == null || !format.isWaveCompatible()) {
+            throw TtsException.of("只支持无容器的 pcm、A 律、μ 律格式：" + (format == null ? null : format.getValue()));
+        }
+        int frameBytes = frameBytes(format, frameMillis);
+        if (frameBytes < 1) {
+            throw TtsException.of("帧时长设置错误");
+        }
+        this.sink = sink;
+        this.silence = silence(format);
+        this.frame = new byte[frameBytes];
+        this.frameView = ByteBuffer.wrap(frame);
+    }
+
+    /**
+     * 每帧字节数
+     *
+     * @param format
+     * @param frameMillis
+     * @return
+     */
+    public static int frameBytes(OutputFormat format, int frameMillis) {
+        long samples = (long) format.getSampleRate() * frameMillis / 1000;
+        return (int) (samples * format.getChannels() * format.getBitsPerSample() / 8);
+    }
+
+    /**
+     * 静音的采样值：μ 律 0xFF，A 律 0xD5，pcm 0
+     *
+     * @param format
+     * @return
+     */
+    public static byte silence(OutputFormat format) {
+        switch (format.getCodec()) {
+            case MULAW:
+                return (byte) 0xFF;
+            case ALAW:
+                return (byte) 0xD5;
+            default:
+                return 0;
+        }
+    }
+
+    @Override
+    public void onAudioFrame(AudioFrame audio) {
+        int length = audio.getPayloadLength();
+        int offset = 0;
+        while (offset < length) {
+            int n = Math.min(length - offset, frame.length - filled);
+            audio.copyPayloadInto(offset, frame, filled, n);
+            offset += n;
+            filled += n;
+            if (filled == frame.length) {
+                emit();
+            }
+        }
+    }
+
+    @Override
+    public void onAudio(ByteBuffer chunk) {
+        while (chunk.hasRemaining()) {
+            int n = Math.min(chunk.remaining(), frame.length - filled);
+            chunk.get(frame, filled, n);
+            filled += n;
+            if (filled == frame.length) {
+                emit();
+            }
+        }
+    }
+
+    @Override
+    public void onComplete(SynthesisResult result) {
+        if (filled > 0) {
+            Arrays.fill(frame, filled, frame.length, silence);
+            filled = frame.length;
+            emit();
+        }
+        sink.onComplete();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        filled = 0;
+        sink.onError(t);
+    }
+
+    private void emit() {
+        frameView.clear();
+        sink.onFrame(frameView, index++);
+        filled = 0;
+    }
+}
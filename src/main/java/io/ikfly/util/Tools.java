@@ -16,7 +16,10 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -29,6 +32,10 @@ public class Tools {
     public static final DateTimeFormatter DTF = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
     public static Logger log = LoggerFactory.getLogger(Tools.class);
     private static OkHttpClient client = new OkHttpClient();
+    /**
+     * getJsonString 按字段名缓存的正则，字段名由调用方代码给出，数量有限
+     */
+    private static final Map<String, Pattern> JSON_FIELD_PATTERNS = new ConcurrentHashMap<>();
 
     public static String httpGet(String url) {
         try {
@@ -53,6 +60,140 @@ public class Tools {
         return NO_VOICE_PATTERN.matcher(charSequence).replaceAll("").isEmpty();
     }
 
+    /**
+     * 读取 ws 消息头部的值，头部与正文以空行分隔
+     *
+     * @param message 消息或头部文本
+     * @param name    头部名称，忽略大小写
+     * @return 不存在时返回 null
+     */
+    public static String getHeader(String message, String name) {
+        int start = 0;
+        int length = message.length();
+        while (start < length) {
+            int end = message.indexOf("\r\n", start);
+            if (end == -1) {
+                end = length;
+            }
+            if (end == start) {
+                // 空行，头部结束
+                return null;
+            }
+            int colon = message.indexOf(':', start);
+            if (colon > start && colon < end && colon - start == name.length()
+                    && message.regionMatches(true, start, name, 0, name.length())) {
+                return message.substring(colon + 1, end).trim();
+            }
+            start = end + 2;
+        }
+        return null;
+    }
+
+    /**
+     * 读取单层 JSON 对象中的字符串字段，不引入 JSON 库
+     *
+     * @param json  JSON 文本
+     * @param field 字段名
+     * @return 反转义后的值，不存在或不是字符串时返回 null
+     */
+    public static String getJsonString(String json, String field) {
+        Pattern pattern = JSON_FIELD_PATTERNS.computeIfAbsent(field,
+                f -> Pattern.compile("\"" + Pattern.quote(f) + "\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\""));
+        Matcher matcher = pattern.matcher(json);
+        return matcher.find() ? unescapeJson(matcher.group(1)) : null;
+    }
+
+    /**
+     * JSON 字符串反转义
+     *
+     * @param value 引号内的原文
+     * @return
+     */
+    public static String unescapeJson(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '\\' || i + 1 == value.length()) {
+                sb.append(c);
+                continue;
+            }
+            char next = value.charAt(++i);
+            switch (next) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 < value.length()) {
+                        sb.append((char) Integer.parseInt(value.substring(i + 1, i + 5), 16));
+                        i += 4;
+                    }
+                    break;
+                default:
+                    sb.append(next);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * XML 转义，用于把外部输入的纯文本放入 ssml
+     *
+     * @param value
+     * @return
+     */
+    public static String escapeXml(String value) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement;
+            switch (c) {
+                case '<':
+                    replacement = "&lt;";
+                    break;
+                case '>':
+                    replacement = "&gt;";
+                    break;
+                case '&':
+                    replacement = "&amp;";
+                    break;
+                case '\'':
+                    replacement = "&apos;";
+                    break;
+                case '"':
+                    replacement = "&quot;";
+                    break;
+                default:
+                    replacement = null;
+            }
+            if (replacement == null) {
+                if (sb != null) {
+                    sb.append(c);
+                }
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(value.length() + 16).append(value, 0, i);
+            }
+            sb.append(replacement);
+        }
+        return sb == null ? value : sb.toString();
+    }
+
     public static void sleep(int second) {
         try {
             Thread.sleep(second * 1000);
@@ -0,0 +1,63 @@
+package io.ikfly.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 虚拟线程支持：Java 21 及以上每个任务一个虚拟线程，低版本退回到守护线程的缓存线程池。
+ * 通过反射调用，项目仍按 Java 8 编译
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class VirtualThreads {
+
+    public static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = find();
+
+    private VirtualThreads() {
+    }
+
+    private static Method find() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 当前 JVM 是否支持虚拟线程
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的执行器，不支持时退回到缓存线程池
+     *
+     * @param fallbackThreadName 退回平台线程时的线程名前缀
+     * @return
+     */
+    public static ExecutorService newExecutor(String fallbackThreadName) {
+        if (isSupported()) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("创建虚拟线程执行器失败，使用平台线程：{}", e.getMessage());
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, fallbackThreadName + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
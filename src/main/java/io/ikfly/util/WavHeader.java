@@ -0,0 +1,96 @@
+package io.ikfly.util;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.exceptions.TtsException;
+import okio.Buffer;
+import okio.ByteString;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * 为无容器的 pcm、A 律、μ 律音频生成 44 字节的 wav 头部，以及对应的 javax.sound 音频格式
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public final class WavHeader {
+
+    /**
+     * 头部长度
+     */
+    public static final int SIZE = 44;
+
+    private static final int WAVE_FORMAT_PCM = 1;
+    private static final int WAVE_FORMAT_ALAW = 6;
+    private static final int WAVE_FORMAT_MULAW = 7;
+
+    private WavHeader() {
+    }
+
+    /**
+     * 生成 wav 头部
+     *
+     * @param format     需为 {@link OutputFormat#isWaveCompatible()} 的格式
+     * @param dataLength 音频数据长度，边写边生成时先传 0，写完后重新生成覆盖
+     * @return
+     */
+    public static ByteString of(OutputFormat format, long dataLength) {
+        int formatTag = formatTag(format);
+        int channels = format.getChannels();
+        int blockAlign = channels * format.getBitsPerSample() / 8;
+        // RIFF 长度字段为 32 位，超过时按最大值写出
+        long length = Math.min(dataLength, 0xFFFFFFFFL - (SIZE - 8));
+        Buffer header = new Buffer();
+        header.writeUtf8("RIFF")
+                .writeIntLe((int) (length + SIZE - 8))
+                .writeUtf8("WAVE")
+                .writeUtf8("fmt ")
+                .writeIntLe(16)
+                .writeShortLe(formatTag)
+                .writeShortLe(channels)
+                .writeIntLe(format.getSampleRate())
+                .writeIntLe(format.getSampleRate() * blockAlign)
+                .writeShortLe(blockAlign)
+                .writeShortLe(format.getBitsPerSample())
+                .writeUtf8("data")
+                .writeIntLe((int) length);
+        return header.readByteString();
+    }
+
+    /**
+     * 对应的 javax.sound 音频格式，用于直接播放无容器的音频流
+     *
+     * @param format 需为 {@link OutputFormat#isWaveCompatible()} 的格式
+     * @return
+     */
+    public static AudioFormat audioFormat(OutputFormat format) {
+        AudioFormat.Encoding encoding;
+        switch (formatTag(format)) {
+            case WAVE_FORMAT_ALAW:
+                encoding = AudioFormat.Encoding.ALAW;
+                break;
+            case WAVE_FORMAT_MULAW:
+                encoding = AudioFormat.Encoding.ULAW;
+                break;
+            default:
+                encoding = AudioFormat.Encoding.PCM_SIGNED;
+        }
+        int frameSize = format.getChannels() * format.getBitsPerSample() / 8;
+        return new AudioFormat(encoding, format.getSampleRate(), format.getBitsPerSample(), format.getChannels(),
+                frameSize, format.getSampleRate(), false);
+    }
+
+    private static int formatTag(OutputFormat format) {
+        if (!format.isWaveCompatible()) {
+            throw TtsException.of("不是 pcm、A 律或 μ 律格式：" + format.getValue());
+        }
+        switch (format.getCodec()) {
+            case ALAW:
+                return WAVE_FORMAT_ALAW;
+            case MULAW:
+                return WAVE_FORMAT_MULAW;
+            default:
+                return WAVE_FORMAT_PCM;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io.ikfly.cache;
+
+import io.ikfly.constant.OutputFormat;
+import okio.Buffer;
+import okio.ByteString;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 按区域映射的段文件：跨区域追加、超过区域大小的音频、重新打开后读取
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class MappedAudioCacheTest {
+
+    private static final int REGION_SIZE = 4096;
+    private static final OutputFormat FORMAT = OutputFormat.audio_24khz_48kbitrate_mono_mp3;
+
+    private Path dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("tts-mapped");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void appendAcrossRegions() {
+        ByteString[] clips = new ByteString[40];
+        try (MappedAudioCache cache = new MappedAudioCache(dir.toString(), REGION_SIZE)) {
+            for (int i = 0; i < clips.length; i++) {
+                // 1000 ~ 3000 字节，部分放不下时从下一个区域开始
+                clips[i] = segmented(i, 1000 + i * 50);
+                cache.put(key(i), FORMAT, clips[i]);
+                // 追加后之前的切片仍然可读，不需要重新映射
+                assertEquals(clips[0], ByteString.of(cache.slice(key(0), FORMAT)));
+            }
+            for (int i = 0; i < clips.length; i++) {
+                ByteBuffer slice = cache.slice(key(i), FORMAT);
+                assertTrue(slice.isReadOnly());
+                assertEquals(clips[i], ByteString.of(slice));
+                assertEquals(clips[i], cache.get(key(i), FORMAT));
+            }
+            assertNull(cache.get(key(-1), FORMAT));
+            assertEquals(clips.length, cache.size());
+        }
+        // 重新打开后按索引读取，继续追加不覆盖已有数据
+        try (MappedAudioCache cache = new MappedAudioCache(dir.toString(), REGION_SIZE)) {
+            ByteString extra = segmented(99, 2500);
+            cache.put(key(99), FORMAT, extra);
+            for (int i = 0; i < clips.length; i++) {
+                assertEquals(clips[i], cache.get(key(i), FORMAT));
+            }
+            assertEquals(extra, ByteString.of(cache.getBuffer(key(99), FORMAT)));
+        }
+    }
+
+    @Test
+    public void clipLargerThanRegion() {
+        try (MappedAudioCache cache = new MappedAudioCache(dir.toString(), REGION_SIZE)) {
+            ByteString small = segmented(1, 100);
+            ByteString large = segmented(2, REGION_SIZE * 3 + 17);
+            cache.put(key(1), FORMAT, small);
+            cache.put(key(2), FORMAT, large);
+            cache.put(key(3), FORMAT, small);
+            assertEquals(large, ByteString.of(cache.slice(key(2), FORMAT)));
+            assertEquals(small, cache.get(key(1), FORMAT));
+            assertEquals(small, cache.get(key(3), FORMAT));
+        }
+    }
+
+    @Test
+    public void reopenWithOtherRegionSize() {
+        ByteString[] clips = new ByteString[10];
+        try (MappedAudioCache cache = new MappedAudioCache(dir.toString(), REGION_SIZE * 2)) {
+            for (int i = 0; i < clips.length; i++) {
+                clips[i] = segmented(i, 3000);
+                cache.put(key(i), FORMAT, clips[i]);
+            }
+        }
+        try (MappedAudioCache cache = new MappedAudioCache(dir.toString(), REGION_SIZE)) {
+            for (int i = 0; i < clips.length; i++) {
+                assertEquals(clips[i], cache.get(key(i), FORMAT));
+            }
+        }
+    }
+
+    private static String key(int i) {
+        return ByteString.encodeUtf8("clip-" + i).sha256().hex();
+    }
+
+    /**
+     * 由多个小段拼成的 ByteString，与合成时收集的音频一样
+     */
+    private static ByteString segmented(int seed, int size) {
+        Random random = new Random(seed);
+        Buffer buffer = new Buffer();
+        byte[] part = new byte[700];
+        for (int written = 0; written < size; written += part.length) {
+            random.nextBytes(part);
+            buffer.write(part, 0, Math.min(part.length, size - written));
+        }
+        return buffer.readByteString();
+    }
+}
@@ -0,0 +1,132 @@
+package io.ikfly.model;
+
+import io.ikfly.exceptions.TtsException;
+import okio.Buffer;
+import okio.ByteString;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * ws 二进制消息解码：头部解析、异常长度、音频数据读取
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class AudioFrameTest {
+
+    private static final byte[] PAYLOAD = {1, 2, 3, 4, 5};
+
+    @Test
+    public void decode() {
+        AudioFrame frame = new AudioFrame().decode(frame("X-RequestId:abc\r\nContent-Type:audio/mpeg\r\nPath:audio\r\n", PAYLOAD));
+        assertEquals("abc", frame.getRequestId());
+        assertTrue(frame.hasAudio());
+        assertEquals(PAYLOAD.length, frame.getPayloadLength());
+        ByteBuffer payload = frame.payload();
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        assertArrayEquals(PAYLOAD, bytes);
+
+        byte[] target = new byte[3];
+        frame.copyPayloadInto(1, target, 0, 3);
+        assertArrayEquals(new byte[]{2, 3, 4}, target);
+        Buffer sink = new Buffer();
+        frame.writePayloadTo(sink);
+        assertArrayEquals(PAYLOAD, sink.readByteArray());
+    }
+
+    @Test
+    public void reuseRequestId() {
+        AudioFrame frame = new AudioFrame();
+        String first = frame.decode(frame("X-RequestId:abc\r\nPath:audio\r\n", PAYLOAD)).getRequestId();
+        assertSame(first, frame.decode(frame("X-RequestId:abc\r\nPath:audio\r\n", PAYLOAD)).getRequestId());
+        assertEquals("abd", frame.decode(frame("X-RequestId:abd\r\nPath:audio\r\n", PAYLOAD)).getRequestId());
+    }
+
+    @Test
+    public void shortFrame() {
+        assertInvalid(ByteString.EMPTY);
+        assertInvalid(ByteString.of((byte) 0));
+    }
+
+    @Test
+    public void headerLengthPastEnd() {
+        assertInvalid(ByteString.of((byte) 0, (byte) 10, (byte) 'P', (byte) 'a'));
+        assertInvalid(ByteString.of((byte) 0xff, (byte) 0xff));
+    }
+
+    /**
+     * 没有 X-RequestId 的帧不能沿用上一帧的值
+     */
+    @Test
+    public void missingRequestId() {
+        AudioFrame frame = new AudioFrame();
+        frame.decode(frame("X-RequestId:abc\r\nContent-Type:audio/mpeg\r\nPath:audio\r\n", PAYLOAD));
+        frame.decode(frame("Content-Type:audio/mpeg\r\nPath:audio\r\n", PAYLOAD));
+        assertNull(frame.getRequestId());
+        assertTrue(frame.hasAudio());
+    }
+
+    @Test
+    public void mixedCaseHeaders() {
+        AudioFrame frame = new AudioFrame().decode(frame("x-requestid: abc\r\ncontent-TYPE:Audio/MPEG\r\nPATH:Audio\r\n", PAYLOAD));
+        assertEquals("abc", frame.getRequestId());
+        assertTrue(frame.hasAudio());
+        // 只对字母忽略大小写，'\r' | 0x20 与 '-' 相同
+        assertNull(new AudioFrame().decode(frame("X\rRequestId:abc\r\nPath:audio\r\n", PAYLOAD)).getRequestId());
+    }
+
+    @Test
+    public void notAudio() {
+        assertFalse(new AudioFrame().decode(frame("X-RequestId:abc\r\nContent-Type:audio/mpeg\r\nPath:audios\r\n", PAYLOAD)).hasAudio());
+        assertFalse(new AudioFrame().decode(frame("X-RequestId:abc\r\nContent-Type:text/plain\r\nPath:audio\r\n", PAYLOAD)).hasAudio());
+        assertFalse(new AudioFrame().decode(frame("X-RequestId:abc\r\nContent-Type:audio/mpeg\r\n", PAYLOAD)).hasAudio());
+    }
+
+    @Test
+    public void emptyPayload() {
+        AudioFrame frame = new AudioFrame().decode(frame("X-RequestId:abc\r\nContent-Type:audio/mpeg\r\nPath:audio\r\n", new byte[0]));
+        assertEquals("abc", frame.getRequestId());
+        assertEquals(0, frame.getPayloadLength());
+        assertFalse(frame.hasAudio());
+        assertEquals(0, frame.payload().remaining());
+    }
+
+    /**
+     * 头部长度为 0，整条消息都是音频数据
+     */
+    @Test
+    public void emptyHeader() {
+        AudioFrame frame = new AudioFrame().decode(frame("", PAYLOAD));
+        assertNull(frame.getRequestId());
+        assertEquals(PAYLOAD.length, frame.getPayloadLength());
+        assertFalse(frame.hasAudio());
+    }
+
+    private static void assertInvalid(ByteString bytes) {
+        try {
+            new AudioFrame().decode(bytes);
+            fail();
+        } catch (TtsException expected) {
+        }
+    }
+
+    private static ByteString frame(String header, byte[] payload) {
+        byte[] headerBytes = header.getBytes(StandardCharsets.US_ASCII);
+        Buffer buffer = new Buffer();
+        buffer.writeShort(headerBytes.length);
+        buffer.write(headerBytes);
+        buffer.write(payload);
+        return buffer.readByteString();
+    }
+}
@@ -0,0 +1,76 @@
+package io.ikfly.model;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 由 audio.metadata 样例构建词边界索引
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class WordBoundaryIndexTest {
+
+    static final String SAMPLE_TEXT = "你好，世界。今天天气很好！Hello world, this is a test.";
+
+    @Test
+    public void sample() throws IOException {
+        WordBoundaryIndex index = new WordBoundaryIndex(SAMPLE_TEXT);
+        List<String> messages = readLines("/subtitle/sample.metadata");
+        // 句子边界、会话结束等其他事件被跳过
+        assertEquals(3, index.addMetadata(messages.get(0)));
+        assertEquals(4, index.addMetadata(messages.get(1)));
+        assertEquals(4, index.addMetadata(messages.get(2)));
+        assertEquals("WordBoundaryIndex{你好@100ms+400, 世界@600ms+400, 今天@1100ms+300, 天气@1450ms+300, 很好@1800ms+350, "
+                + "Hello@2500ms+300, world@2850ms+300, this@3300ms+200, is@3550ms+100, a@3700ms+50, test@3800ms+300}", index.toString());
+        assertEquals(13, index.getTextOffset(5));
+        assertEquals(5, index.getTextLength(5));
+        assertEquals(38_000_000, index.getOffsetTicks(10));
+    }
+
+    @Test
+    public void indexAt() throws IOException {
+        WordBoundaryIndex index = new WordBoundaryIndex(SAMPLE_TEXT);
+        for (String message : readLines("/subtitle/sample.metadata")) {
+            index.addMetadata(message);
+        }
+        assertEquals(-1, index.indexAt(0));
+        assertEquals(0, index.indexAt(1_000_000));
+        // 两个词之间的停顿归入前一个词
+        assertEquals(0, index.indexAt(5_500_000));
+        assertEquals(4, index.indexAt(24_999_999));
+        assertEquals(10, index.indexAt(Long.MAX_VALUE));
+    }
+
+    /**
+     * 服务端规范化后的词在原文中找不到时保留词本身，不影响后续词的定位
+     */
+    @Test
+    public void unmatchedWord() {
+        WordBoundaryIndex index = new WordBoundaryIndex("共1.5元");
+        index.addMetadata("{\"Metadata\":["
+                + "{\"Type\":\"WordBoundary\",\"Data\":{\"Offset\":1000000,\"Duration\":1000000,\"text\":{\"Text\":\"共\",\"Length\":1}}},"
+                + "{\"Type\":\"WordBoundary\",\"Data\":{\"Offset\":2000000,\"Duration\":3000000,\"text\":{\"Text\":\"一点五\",\"Length\":3}}},"
+                + "{\"Type\":\"WordBoundary\",\"Data\":{\"Offset\":5000000,\"Duration\":1000000,\"text\":{\"Text\":\"\\u5143\",\"Length\":1}}}]}");
+        assertEquals(3, index.size());
+        assertEquals(-1, index.getTextOffset(1));
+        assertEquals("一点五", index.getWord(1));
+        assertEquals(4, index.getTextOffset(2));
+        assertEquals("元", index.getWord(2));
+    }
+
+    static List<String> readLines(String resource) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                WordBoundaryIndexTest.class.getResourceAsStream(resource), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
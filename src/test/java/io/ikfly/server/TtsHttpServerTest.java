@@ -0,0 +1,176 @@
+package io.ikfly.server;
+
+import io.ikfly.backend.MockBackend;
+import io.ikfly.metrics.SimpleTtsMetrics;
+import io.ikfly.service.TTSService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 在本地模拟服务端上启动 HTTP 服务，验证状态码、Content-Type 和流式返回的音频
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class TtsHttpServerTest {
+
+    private static final int BYTES_PER_CHAR = 100;
+
+    private MockBackend backend;
+    private TTSService ttsService;
+    private SimpleTtsMetrics metrics;
+    private TtsHttpServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        backend = new MockBackend();
+        backend.getServer().setFirstAudioDelayMillis(0);
+        backend.getServer().setBytesPerChar(BYTES_PER_CHAR);
+        // 单个音频帧内的字节依次递增，便于校验
+        backend.getServer().setChunkSize(1 << 20);
+        ttsService = new TTSService(null, 1, backend);
+        ttsService.setSaveAudioFile(false);
+        metrics = new SimpleTtsMetrics();
+        ttsService.setMetrics(metrics);
+        server = new TtsHttpServer(ttsService, 0);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        ttsService.close();
+        backend.close();
+    }
+
+    @Test
+    public void get() throws IOException {
+        HttpURLConnection connection = open("/tts?text=" + encode("你好世界") + "&rate=%2B10%25&volume=-5.5%25");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("audio/mpeg", connection.getContentType());
+        assertAudio(read(connection.getInputStream()), "你好世界".length());
+    }
+
+    @Test
+    public void post() throws IOException {
+        HttpURLConnection connection = open("/tts?format=raw-8khz-8bit-mono-mulaw");
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write("一段较长的文本".getBytes(StandardCharsets.UTF_8));
+        }
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("audio/PCMU", connection.getContentType());
+        assertAudio(read(connection.getInputStream()), "一段较长的文本".length());
+    }
+
+    @Test
+    public void textIsEscaped() throws IOException {
+        String text = "a</prosody></voice><voice name='x'>b";
+        HttpURLConnection connection = open("/tts?text=" + encode(text));
+        assertEquals(200, connection.getResponseCode());
+        // 模拟服务端按 prosody 内的文本长度返回音频，转义后整段文本仍在 prosody 内
+        assertAudio(read(connection.getInputStream()), "a&lt;/prosody&gt;&lt;/voice&gt;&lt;voice name=&apos;x&apos;&gt;b".length());
+    }
+
+    @Test
+    public void badRequest() throws IOException {
+        assertEquals(400, open("/tts?text=" + encode("你好") + "&rate=" + encode("' x='1")).getResponseCode());
+        assertEquals(400, open("/tts?text=" + encode("你好") + "&volume=loud").getResponseCode());
+        // 未编码的 + 和 %
+        assertEquals(400, open("/tts?text=" + encode("你好") + "&rate=+0%").getResponseCode());
+        assertEquals(400, open("/tts?voice=" + encode("你好")).getResponseCode());
+        assertEquals(400, open("/tts?text=" + encode("你好") + "&format=unknown").getResponseCode());
+    }
+
+    @Test
+    public void firstAudioTimeout() throws Exception {
+        backend.getServer().setFirstAudioDelayMillis(2000);
+        server.setTimeoutMillis(200);
+        assertEquals(504, open("/tts?text=" + encode("你好")).getResponseCode());
+        assertCancelled();
+    }
+
+    @Test
+    public void idleTimeout() throws Exception {
+        backend.getServer().setChunkSize(BYTES_PER_CHAR);
+        backend.getServer().setChunkIntervalMillis(2000);
+        server.setTimeoutMillis(200);
+        HttpURLConnection connection = open("/tts?text=" + encode("你好世界"));
+        // 首个音频帧已发出，之后超时只能中断响应
+        assertEquals(200, connection.getResponseCode());
+        try {
+            read(connection.getInputStream());
+            fail();
+        } catch (IOException expected) {
+        }
+        assertCancelled();
+    }
+
+    @Test
+    public void health() throws IOException {
+        HttpURLConnection connection = open("/health");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("ok", new String(read(connection.getInputStream()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 超时后合成请求被取消
+     */
+    private void assertCancelled() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (cancellations() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, cancellations());
+    }
+
+    private long cancellations() {
+        return metrics.getCounters().entrySet().stream()
+                .filter(e -> e.getKey().startsWith(SimpleTtsMetrics.CANCELLATIONS))
+                .mapToLong(Map.Entry::getValue).sum();
+    }
+
+    private static void assertAudio(byte[] audio, int chars) {
+        assertEquals(chars * BYTES_PER_CHAR, audio.length);
+        for (int i = 1; i < audio.length; i++) {
+            assertTrue("音频数据不连续：" + i, (byte) (audio[i - 1] + 1) == audio[i]);
+        }
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = input.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+}
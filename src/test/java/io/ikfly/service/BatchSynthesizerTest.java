@@ -0,0 +1,69 @@
+package io.ikfly.service;
+
+import io.ikfly.constant.VoiceEnum;
+import io.ikfly.model.SSML;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * CSV、JSONL 行解析，文本需转义后放入 ssml
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class BatchSynthesizerTest {
+
+    private static final SSML TEMPLATE = SSML.builder().synthesisText("template").rate("+10%").build();
+
+    @Test
+    public void csvTextIsEscaped() {
+        Iterator<SSML> rows = new BatchSynthesizer.CsvRows(new StringReader(
+                "text,voice,filename\n" +
+                        "a & b <c>,zh-CN-YunxiNeural,f1\n" +
+                        "\"x</prosody></voice><voice name='y'>z\",,\n"), TEMPLATE);
+        SSML first = rows.next();
+        assertEquals("a &amp; b &lt;c&gt;", first.getSynthesisText());
+        assertEquals(VoiceEnum.zh_CN_YunxiNeural, first.getVoice());
+        assertEquals("f1", first.getOutputFileName());
+        assertProsody(first, "a &amp; b &lt;c&gt;");
+        assertProsody(rows.next(), "x&lt;/prosody&gt;&lt;/voice&gt;&lt;voice name=&apos;y&apos;&gt;z");
+        assertFalse(rows.hasNext());
+    }
+
+    @Test
+    public void jsonlTextIsEscaped() {
+        Iterator<SSML> rows = new BatchSynthesizer.JsonlRows(new StringReader(
+                "{\"text\":\"a & b <c>\",\"filename\":\"f1\"}\n" +
+                        "\n" +
+                        "{\"text\":\"\\\"q\\\" </prosody>\"}\n"), TEMPLATE);
+        SSML first = rows.next();
+        assertEquals("f1", first.getOutputFileName());
+        assertProsody(first, "a &amp; b &lt;c&gt;");
+        assertProsody(rows.next(), "&quot;q&quot; &lt;/prosody&gt;");
+        assertFalse(rows.hasNext());
+    }
+
+    /**
+     * 渲染出的 ssml 中只有模板的 voice、prosody 元素，文本完整地在 prosody 内
+     */
+    private static void assertProsody(SSML ssml, String expected) {
+        String rendered = ssml.render("0123456789abcdef0123456789abcdef");
+        assertTrue(rendered, rendered.endsWith("<prosody pitch='+0Hz' rate='+10%' volume='+0%'>" + expected + "</prosody></voice></speak>"));
+        assertEquals(1, count(rendered, "<voice "));
+        assertEquals(1, count(rendered, "<prosody "));
+    }
+
+    private static int count(String s, String part) {
+        int count = 0;
+        for (int i = s.indexOf(part); i >= 0; i = s.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
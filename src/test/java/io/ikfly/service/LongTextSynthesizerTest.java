@@ -0,0 +1,87 @@
+package io.ikfly.service;
+
+import io.ikfly.backend.MockBackend;
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.exceptions.TtsException;
+import io.ikfly.model.SSML;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 长文本分段合成：某一段失败时，调用方拿到该段的异常，而不是其他段被取消的 CancellationException
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class LongTextSynthesizerTest {
+
+    private static final String TEXT = "第一句。第二句。第三句。第四句。第五句。第六句。";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockBackend backend;
+    private TTSService ttsService;
+    private LongTextSynthesizer synthesizer;
+
+    @Before
+    public void setUp() throws IOException {
+        backend = new MockBackend();
+        backend.getServer().setFirstAudioDelayMillis(0);
+        backend.getServer().setBytesPerChar(100);
+        // 每段分多个音频帧发送，才能在途中断线
+        backend.getServer().setChunkSize(100);
+        ttsService = new TTSService(folder.newFolder().getAbsolutePath(), 2, backend);
+        ttsService.setReconnectBackoff(1, 10);
+        synthesizer = new LongTextSynthesizer(ttsService);
+        synthesizer.setMaxChunkLength(4);
+        synthesizer.setMaxChunksInFlight(2);
+    }
+
+    @After
+    public void tearDown() {
+        ttsService.close();
+        backend.close();
+    }
+
+    @Test
+    public void synthesize() throws Exception {
+        assertEquals(6, synthesizer.split(TEXT).size());
+        SSML ssml = SSML.builder().synthesisText(TEXT).outputFileName("long").build();
+        File file = new File(synthesizer.synthesize(ssml).get(10, TimeUnit.SECONDS).getFilePath());
+        assertEquals(TEXT.length() * 100, file.length());
+    }
+
+    @Test
+    public void chunkFailure() throws Exception {
+        ttsService.setMaxRetries(0);
+        // 第二段在首帧后断线，此时第一段仍在另一个连接上接收，随后被取消
+        backend.getServer().setChunkIntervalMillis(50);
+        backend.getServer().setDisconnectText("第二句");
+        SSML ssml = SSML.builder().synthesisText(TEXT).outputFileName("long").build();
+        try {
+            synthesizer.synthesize(ssml).get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof TtsException);
+            assertFalse(e.getCause() instanceof CancellationException);
+        }
+        // 失败后不再提交后面的段
+        assertTrue(backend.getServer().getRequestCount() < 6);
+        assertFalse(ttsService.audioFile(OutputFormat.audio_24khz_48kbitrate_mono_mp3, "long").exists());
+    }
+}
@@ -0,0 +1,93 @@
+package io.ikfly.service;
+
+import io.ikfly.constant.SubtitleFormat;
+import io.ikfly.model.WordBoundaryIndex;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 由 audio.metadata 样例边合成边生成字幕，与预期的 SRT、WebVTT 文件逐字节比较
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class SubtitleWriterTest {
+
+    private static final String SAMPLE_TEXT = "你好，世界。今天天气很好！Hello world, this is a test.";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AudioFileWriter audioFileWriter = new AudioFileWriter();
+
+    @After
+    public void tearDown() {
+        audioFileWriter.shutdown();
+    }
+
+    /**
+     * 标点处另起一条，超过 12 个字符时在词前断开
+     */
+    @Test
+    public void srt() throws Exception {
+        assertEquals(resource("/subtitle/sample.srt"), write(SubtitleFormat.SRT));
+    }
+
+    @Test
+    public void vtt() throws Exception {
+        assertEquals(resource("/subtitle/sample.vtt"), write(SubtitleFormat.VTT));
+    }
+
+    /**
+     * 时间超过 1 小时
+     */
+    @Test
+    public void hours() throws Exception {
+        WordBoundaryIndex words = new WordBoundaryIndex("late");
+        words.add(37_230_040_000L, 10_000_000, "late");
+        File target = new File(folder.getRoot(), "hours.srt");
+        SubtitleWriter writer = new SubtitleWriter(audioFileWriter, target, SubtitleFormat.SRT, words, 12);
+        writer.finish().get(5, TimeUnit.SECONDS);
+        assertEquals("1\n01:02:03,004 --> 01:02:04,004\nlate\n\n", new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 词边界分多条消息到达，每条到达后处理一次
+     */
+    private String write(SubtitleFormat format) throws Exception {
+        WordBoundaryIndex words = new WordBoundaryIndex(SAMPLE_TEXT);
+        File target = new File(folder.getRoot(), "sample." + format.getSuffix());
+        SubtitleWriter writer = new SubtitleWriter(audioFileWriter, target, format, words, 12);
+        for (String message : lines("/subtitle/sample.metadata")) {
+            words.addMetadata(message);
+            writer.update();
+        }
+        File file = writer.finish().get(5, TimeUnit.SECONDS);
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private static String resource(String name) throws IOException {
+        return lines(name).stream().map(line -> line + "\n").collect(Collectors.joining());
+    }
+
+    private static List<String> lines(String name) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                SubtitleWriterTest.class.getResourceAsStream(name), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
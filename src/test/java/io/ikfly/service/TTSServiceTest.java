@@ -0,0 +1,233 @@
+package io.ikfly.service;
+
+import io.ikfly.backend.MockBackend;
+import io.ikfly.cache.MemoryAudioCache;
+import io.ikfly.exceptions.TtsException;
+import io.ikfly.metrics.SimpleTtsMetrics;
+import io.ikfly.model.SSML;
+import io.ikfly.model.SynthesisResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 在本地模拟服务端上验证连接池的合成、缓存行为
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class TTSServiceTest {
+
+    private static final int BYTES_PER_CHAR = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dir;
+    private MockBackend backend;
+    private TTSService ttsService;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = folder.newFolder();
+        backend = new MockBackend();
+        backend.getServer().setFirstAudioDelayMillis(0);
+        backend.getServer().setBytesPerChar(BYTES_PER_CHAR);
+        ttsService = new TTSService(dir.getAbsolutePath() + File.separator, 2, backend);
+    }
+
+    @After
+    public void tearDown() {
+        ttsService.close();
+        backend.close();
+    }
+
+    /**
+     * 不同连接池大小下并发提交，每个连接各建立一次，各请求拿到自己的音频
+     */
+    @Test
+    public void concurrentRequests() throws Exception {
+        backend.getServer().setFirstAudioDelayMillis(20);
+        for (int poolSize : new int[]{1, 2, 4}) {
+            SimpleTtsMetrics metrics = new SimpleTtsMetrics();
+            TTSService service = new TTSService(null, poolSize, backend);
+            service.setSaveAudioFile(false);
+            service.setMetrics(metrics);
+            try {
+                List<String> texts = new ArrayList<>();
+                List<CompletableFuture<SynthesisResult>> futures = new ArrayList<>();
+                for (int i = 1; i <= 16; i++) {
+                    String text = repeat('a', i);
+                    texts.add(text);
+                    futures.add(service.synthesizeAsync(SSML.builder().synthesisText(text).build()));
+                }
+                for (int i = 0; i < futures.size(); i++) {
+                    SynthesisResult result = futures.get(i).get(10, TimeUnit.SECONDS);
+                    assertEquals(texts.get(i), result.getSynthesisText());
+                    assertEquals(texts.get(i).length() * BYTES_PER_CHAR, result.getAudio().size());
+                }
+                assertEquals(poolSize, metrics.getCounter(SimpleTtsMetrics.CONNECTIONS));
+            } finally {
+                service.close();
+            }
+        }
+    }
+
+    /**
+     * 单个连接上同时进行多个请求，音频帧交错到达，按 X-RequestId 分给各自的请求
+     */
+    @Test
+    public void interleavedRequests() throws Exception {
+        backend.getServer().setChunkSize(BYTES_PER_CHAR);
+        backend.getServer().setChunkIntervalMillis(100);
+        SimpleTtsMetrics metrics = new SimpleTtsMetrics();
+        TTSService service = new TTSService(null, 1, backend);
+        service.setSaveAudioFile(false);
+        service.setMetrics(metrics);
+        service.setMaxInFlightPerConnection(4);
+        try {
+            // 先建立连接，计时不含握手
+            service.warmUp(1, null).get(10, TimeUnit.SECONDS);
+            long start = System.nanoTime();
+            List<CompletableFuture<SynthesisResult>> futures = new ArrayList<>();
+            for (int i = 1; i <= 4; i++) {
+                futures.add(service.synthesizeAsync(SSML.builder().synthesisText(repeat('a', i + 2)).build()));
+            }
+            for (int i = 1; i <= 4; i++) {
+                SynthesisResult result = futures.get(i - 1).get(10, TimeUnit.SECONDS);
+                assertEquals((i + 2) * BYTES_PER_CHAR, result.getAudio().size());
+                // 每帧的字节从相同的值开始递增，交错后仍按帧对齐
+                byte[] audio = result.getAudio().toByteArray();
+                for (int j = BYTES_PER_CHAR; j < audio.length; j++) {
+                    assertEquals(audio[j - BYTES_PER_CHAR], audio[j]);
+                }
+            }
+            // 依次合成至少需要 (2 + 3 + 4 + 5) * 100ms
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+            assertEquals(1, metrics.getCounter(SimpleTtsMetrics.CONNECTIONS));
+        } finally {
+            service.close();
+        }
+    }
+
+    /**
+     * 按概率在返回音频途中断线，在途请求重发后拿到完整的音频，服务端收到的请求数等于提交数加重发次数
+     */
+    @Test
+    public void replayOnDisconnect() throws Exception {
+        backend.getServer().setChunkSize(BYTES_PER_CHAR);
+        backend.getServer().setDisconnectProbability(0.5);
+        SimpleTtsMetrics metrics = new SimpleTtsMetrics();
+        ttsService.setSaveAudioFile(false);
+        ttsService.setMetrics(metrics);
+        ttsService.setMaxRetries(20);
+        ttsService.setReconnectBackoff(1, 10);
+        List<CompletableFuture<SynthesisResult>> futures = new ArrayList<>();
+        for (int i = 2; i < 22; i++) {
+            futures.add(ttsService.synthesizeAsync(SSML.builder().synthesisText(repeat('a', i)).build()));
+        }
+        for (int i = 2; i < 22; i++) {
+            SynthesisResult result = futures.get(i - 2).get(30, TimeUnit.SECONDS);
+            assertEquals(i * BYTES_PER_CHAR, result.getAudio().size());
+        }
+        long retries = counter(metrics, SimpleTtsMetrics.RETRIES);
+        assertTrue(retries > 0);
+        assertEquals(20 + retries, backend.getServer().getRequestCount());
+        assertEquals(0, counter(metrics, SimpleTtsMetrics.FAILURES));
+    }
+
+    /**
+     * 每次都断线的请求重发 maxRetries 次后失败，不影响其他请求
+     */
+    @Test
+    public void retryLimit() throws Exception {
+        backend.getServer().setChunkSize(BYTES_PER_CHAR);
+        backend.getServer().setDisconnectText("bad");
+        SimpleTtsMetrics metrics = new SimpleTtsMetrics();
+        ttsService.setSaveAudioFile(false);
+        ttsService.setMetrics(metrics);
+        ttsService.setMaxRetries(2);
+        ttsService.setReconnectBackoff(1, 10);
+        CompletableFuture<SynthesisResult> bad = ttsService.synthesizeAsync(SSML.builder().synthesisText("bad text").build());
+        CompletableFuture<SynthesisResult> good = ttsService.synthesizeAsync(SSML.builder().synthesisText("good text").build());
+        try {
+            bad.get(10, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof TtsException);
+        }
+        assertEquals("good text".length() * BYTES_PER_CHAR, good.get(10, TimeUnit.SECONDS).getAudio().size());
+        assertEquals(2, counter(metrics, SimpleTtsMetrics.RETRIES));
+        assertEquals(1, counter(metrics, SimpleTtsMetrics.FAILURES));
+        assertEquals(1 + 3, backend.getServer().getRequestCount());
+    }
+
+    /**
+     * 默认写出文件时，命中缓存复用首次写出的文件，在提交线程上直接完成，不再排队写出重复的文件
+     */
+    @Test
+    public void cacheHitReusesFile() throws Exception {
+        ttsService.setAudioCache(new MemoryAudioCache(1 << 20));
+        SSML ssml = SSML.builder().synthesisText("hello world").build();
+        SynthesisResult first = ttsService.synthesize(ssml, 10, TimeUnit.SECONDS);
+
+        CompletableFuture<SynthesisResult> hit = ttsService.synthesizeAsync(ssml);
+        assertTrue(hit.isDone());
+        SynthesisResult second = hit.get();
+        assertEquals(first.getFilePath(), second.getFilePath());
+        assertArrayEquals(first.getAudio().toByteArray(), second.getAudio().toByteArray());
+        assertEquals(1, backend.getServer().getRequestCount());
+        assertEquals(1, dir.listFiles().length);
+    }
+
+    /**
+     * 指定了其他文件名时重新写出
+     */
+    @Test
+    public void cacheHitWithOtherFileName() throws Exception {
+        ttsService.setAudioCache(new MemoryAudioCache(1 << 20));
+        SynthesisResult first = ttsService.synthesize(SSML.builder().synthesisText("hello world").outputFileName("a").build(), 10, TimeUnit.SECONDS);
+        SynthesisResult second = ttsService.synthesize(SSML.builder().synthesisText("hello world").outputFileName("b").build(), 10, TimeUnit.SECONDS);
+        assertNotEquals(first.getFilePath(), second.getFilePath());
+        assertEquals(new File(first.getFilePath()).length(), new File(second.getFilePath()).length());
+        assertEquals(1, backend.getServer().getRequestCount());
+
+        // 文件被删除后同样重新写出
+        assertTrue(new File(second.getFilePath()).delete());
+        SynthesisResult third = ttsService.synthesize(SSML.builder().synthesisText("hello world").outputFileName("b").build(), 10, TimeUnit.SECONDS);
+        assertEquals("hello world".length() * BYTES_PER_CHAR, new File(third.getFilePath()).length());
+    }
+
+    /**
+     * 不区分输出格式和语音的计数
+     */
+    private static long counter(SimpleTtsMetrics metrics, String name) {
+        return metrics.getCounters().entrySet().stream()
+                .filter(e -> e.getKey().startsWith(name + "["))
+                .mapToLong(Map.Entry::getValue).sum();
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,133 @@
+package io.ikfly.telephony;
+
+import io.ikfly.exceptions.TtsException;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 定长帧环形缓冲：写满时的处理方式、回绕、结束状态
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class FrameRingBufferTest {
+
+    private static final int FRAME_BYTES = 4;
+
+    /**
+     * 总字节数超出 int 范围时拒绝，而不是溢出成负数或过小的数组
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityOverflow() {
+        new FrameRingBuffer(160, Integer.MAX_VALUE / 100);
+    }
+
+    /**
+     * 写入和取出交替进行，写入位置多次越过数组末尾，帧顺序不变
+     */
+    @Test
+    public void wraparound() {
+        FrameRingBuffer buffer = new FrameRingBuffer(FRAME_BYTES, 3);
+        byte[] dst = new byte[FRAME_BYTES];
+        int next = 0;
+        for (int i = 0; i < 10; i++) {
+            buffer.onFrame(frame(i), i);
+            if (i % 2 == 1) {
+                // 每写两帧取一帧，缓冲逐渐写满，再全部取出
+                assertTrue(buffer.poll(dst));
+                assertArrayEquals(bytes(next++), dst);
+            }
+            if (buffer.size() == 3) {
+                while (buffer.poll(dst)) {
+                    assertArrayEquals(bytes(next++), dst);
+                }
+            }
+        }
+        while (buffer.poll(dst)) {
+            assertArrayEquals(bytes(next++), dst);
+        }
+        assertEquals(10, next);
+    }
+
+    @Test
+    public void dropOldest() {
+        FrameRingBuffer buffer = new FrameRingBuffer(FRAME_BYTES, 3, FrameRingBuffer.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 5; i++) {
+            buffer.onFrame(frame(i), i);
+        }
+        buffer.onComplete();
+        assertEquals(2, buffer.getDropped());
+        assertEquals(3, buffer.size());
+        byte[] dst = new byte[FRAME_BYTES];
+        for (int i = 2; i < 5; i++) {
+            assertTrue(buffer.poll(dst));
+            assertArrayEquals(bytes(i), dst);
+        }
+        assertTrue(buffer.isFinished());
+    }
+
+    /**
+     * 写满时抛出异常使合成请求失败，已缓冲的帧仍可取出，之后的帧被忽略
+     */
+    @Test
+    public void failWhenFull() {
+        FrameRingBuffer buffer = new FrameRingBuffer(FRAME_BYTES, 2);
+        buffer.onFrame(frame(0), 0);
+        buffer.onFrame(frame(1), 1);
+        try {
+            buffer.onFrame(frame(2), 2);
+            fail();
+        } catch (TtsException expected) {
+        }
+        assertNotNull(buffer.getError());
+        buffer.onFrame(frame(3), 3);
+        byte[] dst = new byte[FRAME_BYTES];
+        assertTrue(buffer.poll(dst));
+        assertArrayEquals(bytes(0), dst);
+        assertTrue(buffer.poll(dst));
+        assertArrayEquals(bytes(1), dst);
+        assertFalse(buffer.poll(dst));
+        assertTrue(buffer.isFinished());
+    }
+
+    @Test
+    public void take() throws InterruptedException {
+        FrameRingBuffer buffer = new FrameRingBuffer(FRAME_BYTES, 2);
+        byte[] dst = new byte[FRAME_BYTES];
+        assertFalse(buffer.take(dst, 10, TimeUnit.MILLISECONDS));
+        new Thread(() -> buffer.onFrame(frame(7), 0)).start();
+        assertTrue(buffer.take(dst, 5, TimeUnit.SECONDS));
+        assertArrayEquals(bytes(7), dst);
+        buffer.onComplete();
+        // 已结束时立即返回
+        assertFalse(buffer.take(dst, 5, TimeUnit.SECONDS));
+        assertTrue(buffer.isFinished());
+
+        buffer.reset();
+        assertFalse(buffer.isFinished());
+        buffer.onFrame(frame(8), 0);
+        assertTrue(buffer.poll(dst));
+        assertArrayEquals(bytes(8), dst);
+    }
+
+    private static ByteBuffer frame(int value) {
+        return ByteBuffer.wrap(bytes(value));
+    }
+
+    private static byte[] bytes(int value) {
+        byte[] bytes = new byte[FRAME_BYTES];
+        for (int i = 0; i < FRAME_BYTES; i++) {
+            bytes[i] = (byte) (value * FRAME_BYTES + i);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,125 @@
+package io.ikfly.telephony;
+
+import io.ikfly.constant.OutputFormat;
+import io.ikfly.model.AudioFrame;
+import okio.Buffer;
+import okio.ByteString;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 定长帧切分：跨 ws 帧拼接、最后不足一帧时按编码补静音
+ *
+ * @author zh-hq
+ * @date 2026/10/18
+ */
+public class FrameSlicerTest {
+
+    @Test
+    public void frameBytes() {
+        assertEquals(160, FrameSlicer.frameBytes(OutputFormat.raw_8khz_8bit_mono_mulaw, 20));
+        assertEquals(640, FrameSlicer.frameBytes(OutputFormat.raw_16khz_16bit_mono_pcm, 20));
+    }
+
+    /**
+     * ws 帧大小与定长帧不对齐，切分后按顺序拼回原始数据
+     */
+    @Test
+    public void slice() {
+        Frames sink = new Frames();
+        FrameSlicer slicer = new FrameSlicer(OutputFormat.raw_8khz_8bit_mono_mulaw, 20, sink);
+        byte[] audio = audio(160 * 3);
+        slicer.onAudio(ByteBuffer.wrap(audio, 0, 100));
+        slicer.onAudioFrame(new AudioFrame().decode(wsFrame(audio, 100, 250)));
+        slicer.onAudio(ByteBuffer.wrap(audio, 350, 130));
+        slicer.onComplete(null);
+        assertTrue(sink.complete);
+        assertEquals(3, sink.frames.size());
+        for (int i = 0; i < 3; i++) {
+            byte[] expected = new byte[160];
+            System.arraycopy(audio, i * 160, expected, 0, 160);
+            assertArrayEquals(expected, sink.frames.get(i));
+            assertEquals(i, (long) sink.indexes.get(i));
+        }
+    }
+
+    @Test
+    public void padMulaw() {
+        assertPadding(OutputFormat.raw_8khz_8bit_mono_mulaw, (byte) 0xFF);
+    }
+
+    @Test
+    public void padAlaw() {
+        assertPadding(OutputFormat.raw_8khz_8bit_mono_alaw, (byte) 0xD5);
+    }
+
+    @Test
+    public void padPcm() {
+        assertPadding(OutputFormat.raw_8khz_16bit_mono_pcm, (byte) 0);
+    }
+
+    /**
+     * 最后不足一帧的部分用该编码的静音补齐
+     */
+    private static void assertPadding(OutputFormat format, byte silence) {
+        Frames sink = new Frames();
+        FrameSlicer slicer = new FrameSlicer(format, 20, sink);
+        int frameBytes = FrameSlicer.frameBytes(format, 20);
+        byte[] audio = audio(frameBytes + 10);
+        slicer.onAudio(ByteBuffer.wrap(audio));
+        slicer.onComplete(null);
+        assertEquals(2, sink.frames.size());
+        byte[] last = sink.frames.get(1);
+        assertEquals(frameBytes, last.length);
+        for (int i = 0; i < frameBytes; i++) {
+            assertEquals(i < 10 ? audio[frameBytes + i] : silence, last[i]);
+        }
+    }
+
+    private static byte[] audio(int length) {
+        byte[] audio = new byte[length];
+        for (int i = 0; i < length; i++) {
+            audio[i] = (byte) (i * 7);
+        }
+        return audio;
+    }
+
+    private static ByteString wsFrame(byte[] audio, int offset, int length) {
+        byte[] header = "X-RequestId:abc\r\nContent-Type:audio/basic\r\nPath:audio\r\n".getBytes(StandardCharsets.US_ASCII);
+        Buffer buffer = new Buffer();
+        buffer.writeShort(header.length);
+        buffer.write(header);
+        buffer.write(audio, offset, length);
+        return buffer.readByteString();
+    }
+
+    /**
+     * 帧数据的底层缓冲会被复用，收到时复制
+     */
+    private static class Frames implements FrameSink {
+        private final List<byte[]> frames = new ArrayList<>();
+        private final List<Long> indexes = new ArrayList<>();
+        private boolean complete;
+
+        @Override
+        public void onFrame(ByteBuffer frame, long index) {
+            byte[] copy = new byte[frame.remaining()];
+            frame.get(copy);
+            frames.add(copy);
+            indexes.add(index);
+        }
+
+        @Override
+        public void onComplete() {
+            complete = true;
+        }
+    }
+}